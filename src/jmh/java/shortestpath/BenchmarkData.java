@@ -0,0 +1,55 @@
+package shortestpath;
+
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.CompressedRegionSource;
+import shortestpath.pathfinder.SplitFlagMap;
+import shortestpath.pathfinder.TransportGraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the plugin's resources the way it does, without its cache files, for the benchmarks to start from.
+ */
+public class BenchmarkData {
+    public static final int REGION_SIZE = 64;
+
+    public static byte[] resource(String name) throws IOException {
+        return Util.readAllBytes(BenchmarkData.class.getResourceAsStream(name));
+    }
+
+    public static Map<SplitFlagMap.Position, byte[]> compressedRegions() throws IOException {
+        return CompressedRegionSource.readZip(new ByteArrayInputStream(resource("/collision-map.zip")));
+    }
+
+    public static CollisionMap collisionMap() throws IOException {
+        return new CollisionMap(REGION_SIZE, compressedRegions());
+    }
+
+    public static List<String> transportLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        for (String line : new String(resource("/transports.txt"), StandardCharsets.UTF_8).split("\n")) {
+            if (!line.startsWith("#") && !line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+
+        return lines;
+    }
+
+    public static TransportGraph transportGraph(List<Transport> transports) {
+        return PathfinderLoader.compileTransports(transports, null);
+    }
+
+    /**
+     * @return a graph of every transport, as if the player met all of their requirements
+     */
+    public static TransportGraph transportGraph() {
+        return transportGraph(new PathfinderLoader(null, Runnable::run).loadTransports());
+    }
+}
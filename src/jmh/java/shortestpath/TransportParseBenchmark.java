@@ -0,0 +1,55 @@
+package shortestpath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import shortestpath.pathfinder.TransportGraph;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading transports.txt at startup, and compiling the graph the searches use, which is redone whenever the
+ * player's levels or quests change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TransportParseBenchmark {
+    private List<String> lines;
+    private List<Transport> transports;
+
+    @Setup
+    public void setUp() throws IOException {
+        lines = BenchmarkData.transportLines();
+        transports = parse();
+    }
+
+    @Benchmark
+    public List<Transport> parse() {
+        List<Transport> result = new ArrayList<>(lines.size());
+
+        for (String line : lines) {
+            result.add(Transport.parse(line));
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public TransportGraph compile() {
+        return BenchmarkData.transportGraph(transports);
+    }
+}
@@ -0,0 +1,97 @@
+package shortestpath.pathfinder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import shortestpath.BenchmarkData;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups on regions that are already loaded, either all near each other like a search around the player makes them
+ * ("hot"), or spread over the whole map so that most of them miss the CPU caches ("cold").
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CollisionMapBenchmark {
+    private static final int TILES = 4096;
+    private static final int HOT_SIZE = 16;
+
+    @Param({"hot", "cold"})
+    public String cache;
+
+    private CollisionMap map;
+    private final int[] xs = new int[TILES];
+    private final int[] ys = new int[TILES];
+
+    @Setup
+    public void setUp() throws IOException {
+        map = BenchmarkData.collisionMap();
+        Random random = new Random(0);
+        int regionSize = map.getRegionSize();
+
+        for (int i = 0; i < TILES; i++) {
+            if ("hot".equals(cache)) {
+                // Around Lumbridge castle
+                xs[i] = 3208 + random.nextInt(HOT_SIZE);
+                ys[i] = 3210 + random.nextInt(HOT_SIZE);
+            } else {
+                int regionX;
+                int regionY;
+
+                do {
+                    regionX = random.nextInt(map.getWidthInRegions());
+                    regionY = random.nextInt(map.getHeightInRegions());
+                } while (!map.hasRegion(regionX, regionY));
+
+                xs[i] = regionX * regionSize + random.nextInt(regionSize);
+                ys[i] = regionY * regionSize + random.nextInt(regionSize);
+            }
+
+            // So that neither benchmark measures decoding the regions
+            map.movementMask(xs[i], ys[i], 0);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILES)
+    public int directionChecks() {
+        int open = 0;
+
+        for (int i = 0; i < TILES; i++) {
+            int x = xs[i];
+            int y = ys[i];
+            open += (map.n(x, y, 0) ? 1 : 0) + (map.s(x, y, 0) ? 1 : 0) + (map.e(x, y, 0) ? 1 : 0) + (map.w(x, y, 0) ? 1 : 0) +
+                    (map.ne(x, y, 0) ? 1 : 0) + (map.nw(x, y, 0) ? 1 : 0) + (map.se(x, y, 0) ? 1 : 0) + (map.sw(x, y, 0) ? 1 : 0);
+        }
+
+        return open;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TILES)
+    public int movementMask() {
+        int open = 0;
+
+        for (int i = 0; i < TILES; i++) {
+            open += Integer.bitCount(map.movementMask(xs[i], ys[i], 0));
+        }
+
+        return open;
+    }
+}
@@ -0,0 +1,66 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import shortestpath.BenchmarkData;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A distance matrix between towns across the map, with pools of different sizes to see how it scales with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class DistanceMatrixBenchmark {
+    // Lumbridge, Varrock, Falador, East Ardougne, Port Sarim, Edgeville, Seers' Village and Draynor Village
+    private static final List<WorldPoint> POINTS = Arrays.asList(
+            new WorldPoint(3222, 3218, 0),
+            new WorldPoint(3213, 3424, 0),
+            new WorldPoint(2965, 3380, 0),
+            new WorldPoint(2662, 3305, 0),
+            new WorldPoint(3023, 3208, 0),
+            new WorldPoint(3093, 3493, 0),
+            new WorldPoint(2757, 3477, 0),
+            new WorldPoint(3093, 3244, 0));
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private DistanceMatrix.Calculator calculator;
+
+    @Setup
+    public void setUp() throws IOException {
+        pool = new ForkJoinPool(threads);
+        calculator = new DistanceMatrix.Calculator(BenchmarkData.collisionMap(), BenchmarkData.transportGraph(), pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public DistanceMatrix compute() {
+        return calculator.compute(POINTS, false);
+    }
+}
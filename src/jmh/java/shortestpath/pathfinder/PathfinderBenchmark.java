@@ -0,0 +1,82 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import shortestpath.BenchmarkData;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole searches from Lumbridge castle on a map that is already loaded, like every search after the first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PathfinderBenchmark {
+    private static final WorldPoint LUMBRIDGE = new WorldPoint(3222, 3218, 0);
+    private static final int LANDMARK_COUNT = 8;
+
+    // Across the castle courtyard, to Varrock's south gate and over the map to East Ardougne
+    @Param({"short", "medium", "cross-map"})
+    public String route;
+
+    @Param
+    public SearchAlgorithm algorithm;
+
+    private CollisionMap map;
+    private TransportGraph transports;
+    private RegionGraph regionGraph;
+    private LandmarkTable landmarks;
+    private WorldPoint target;
+
+    @Setup
+    public void setUp() throws IOException {
+        map = BenchmarkData.collisionMap();
+        transports = BenchmarkData.transportGraph();
+
+        switch (route) {
+            case "short":
+                target = new WorldPoint(3236, 3225, 0);
+                break;
+            case "medium":
+                target = new WorldPoint(3213, 3424, 0);
+                break;
+            case "cross-map":
+                target = new WorldPoint(2662, 3305, 0);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown route: " + route);
+        }
+
+        if (algorithm == SearchAlgorithm.HIERARCHICAL) {
+            regionGraph = RegionGraph.build(map, transports, ForkJoinPool.commonPool());
+        } else if (algorithm == SearchAlgorithm.LANDMARKS) {
+            landmarks = LandmarkTable.build(map, transports, WorldPointUtil.pack(LUMBRIDGE), LANDMARK_COUNT);
+        }
+
+        if (find() == null) {
+            throw new IllegalStateException("No path from " + LUMBRIDGE + " to " + target);
+        }
+    }
+
+    @Benchmark
+    public List<WorldPoint> find() {
+        return new Pathfinder(map, transports, regionGraph, landmarks, LUMBRIDGE, target, false, algorithm).find();
+    }
+}
@@ -0,0 +1,68 @@
+package shortestpath.pathfinder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import shortestpath.BenchmarkData;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inflating the regions of collision-map.zip, which is what a search pays for the first time it reaches a region.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RegionDecodeBenchmark {
+    private byte[] zip;
+    private CompressedRegionSource source;
+    private SplitFlagMap.Position[] positions;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        zip = BenchmarkData.resource("/collision-map.zip");
+        Map<SplitFlagMap.Position, byte[]> compressedRegions = readZip();
+        source = new CompressedRegionSource(BenchmarkData.REGION_SIZE, compressedRegions);
+
+        // Shuffled so that the regions aren't decoded in the order they are laid out in the zip
+        List<SplitFlagMap.Position> shuffled = new ArrayList<>();
+        for (SplitFlagMap.Position position : compressedRegions.keySet()) {
+            if (position.x >= 0 && position.y >= 0) {
+                shuffled.add(position);
+            }
+        }
+
+        Collections.shuffle(shuffled, new Random(0));
+        positions = shuffled.toArray(new SplitFlagMap.Position[0]);
+    }
+
+    @Benchmark
+    public FlagMap inflateRegion() {
+        SplitFlagMap.Position position = positions[next];
+        next = next + 1 == positions.length ? 0 : next + 1;
+        return source.load(position.x, position.y, CollisionMap.FLAG_COUNT);
+    }
+
+    @Benchmark
+    public Map<SplitFlagMap.Position, byte[]> readZip() throws IOException {
+        return CompressedRegionSource.readZip(new ByteArrayInputStream(zip));
+    }
+}
@@ -0,0 +1,55 @@
+package shortestpath;
+
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.ui.overlay.OverlayPanel;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import net.runelite.client.ui.overlay.components.TitleComponent;
+import shortestpath.pathfinder.SearchStats;
+
+import javax.inject.Inject;
+import java.awt.*;
+import java.util.List;
+
+public class PathDebugOverlay extends OverlayPanel {
+    private final ShortestPathPlugin plugin;
+    private final ShortestPathConfig config;
+
+    @Inject
+    public PathDebugOverlay(ShortestPathPlugin plugin, ShortestPathConfig config) {
+        this.plugin = plugin;
+        this.config = config;
+        setPosition(OverlayPosition.TOP_LEFT);
+    }
+
+    @Override
+    public Dimension render(Graphics2D graphics) {
+        if (!config.drawDebugInfo()) {
+            return null;
+        }
+
+        PathfinderStats stats = plugin.getStats();
+        SearchStats search = stats.getSearch();
+        List<WorldPoint> path = plugin.getPathResult().getPath();
+
+        panelComponent.getChildren().add(TitleComponent.builder().text("Shortest path").build());
+        addLine("Reason", stats.getReason() == null ? "-" : stats.getReason().toString());
+        addLine("Search", stats.getSearchedWith() == null ? "-" : stats.getSearchedWith());
+
+        if (search != null) {
+            addLine("Expanded", Integer.toString(search.expanded));
+            addLine("Frontier peak", Integer.toString(search.frontierPeak));
+            addLine("Visited", Integer.toString(search.visited));
+            addLine("Search ms", String.format("%.1f", search.getMillis()));
+        }
+
+        addLine("Path length", path == null ? "-" : Integer.toString(path.size()));
+        addLine("Regions loaded", Integer.toString(stats.getRegionsLoaded()));
+        addLine("Decode ms", String.format("%.1f", stats.getDecodeNanos() / 1e6));
+        return super.render(graphics);
+    }
+
+    private void addLine(String left, String right) {
+        panelComponent.getChildren().add(LineComponent.builder().left(left).right(right).build());
+    }
+}
@@ -0,0 +1,127 @@
+package shortestpath;
+
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.pathfinder.WorldPointUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A path split into straight runs of tiles, bucketed by region and plane, which the overlays build their drawing from
+ * so that they only go through the part of the path they can show.
+ */
+public class PathGeometry {
+    private static final int REGION_SHIFT = 6;
+    private final Map<Integer, List<Run>> regions = new HashMap<>();
+
+    public PathGeometry(List<WorldPoint> path) {
+        int i = 0;
+
+        while (i < path.size()) {
+            WorldPoint start = path.get(i);
+            int region = region(start.getX() >> REGION_SHIFT, start.getY() >> REGION_SHIFT, start.getPlane());
+            int dx = 0;
+            int dy = 0;
+            int length = 1;
+
+            for (; i + length < path.size(); length++) {
+                WorldPoint previous = path.get(i + length - 1);
+                WorldPoint next = path.get(i + length);
+                int stepX = next.getX() - previous.getX();
+                int stepY = next.getY() - previous.getY();
+
+                if (next.getPlane() != start.getPlane() || Math.abs(stepX) > 1 || Math.abs(stepY) > 1 ||
+                        (length > 1 && (stepX != dx || stepY != dy)) ||
+                        region(next.getX() >> REGION_SHIFT, next.getY() >> REGION_SHIFT, next.getPlane()) != region) {
+                    break;
+                }
+
+                dx = stepX;
+                dy = stepY;
+            }
+
+            regions.computeIfAbsent(region, k -> new ArrayList<>()).add(new Run(start.getX(), start.getY(), start.getPlane(), dx, dy, length));
+            i += length;
+        }
+    }
+
+    /**
+     * Calls {@code action} for each run on {@code plane} with any tile within the given bounds, inclusive.
+     */
+    public void forEachRun(int minX, int minY, int maxX, int maxY, int plane, Consumer<Run> action) {
+        for (int regionY = Math.max(0, minY) >> REGION_SHIFT; regionY <= maxY >> REGION_SHIFT; regionY++) {
+            for (int regionX = Math.max(0, minX) >> REGION_SHIFT; regionX <= maxX >> REGION_SHIFT; regionX++) {
+                List<Run> runs = regions.get(region(regionX, regionY, plane));
+
+                if (runs == null) {
+                    continue;
+                }
+
+                for (Run run : runs) {
+                    if (run.getMaxX() >= minX && run.getMinX() <= maxX && run.getMaxY() >= minY && run.getMinY() <= maxY) {
+                        action.accept(run);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int region(int regionX, int regionY, int plane) {
+        return WorldPointUtil.pack(regionX, regionY, plane);
+    }
+
+    /**
+     * Tiles of a path in a straight line, going {@code dx} and {@code dy} from one to the next.
+     */
+    public static class Run {
+        public final int x;
+        public final int y;
+        public final int plane;
+        public final int dx;
+        public final int dy;
+        public final int length;
+
+        public Run(int x, int y, int plane, int dx, int dy, int length) {
+            this.x = x;
+            this.y = y;
+            this.plane = plane;
+            this.dx = dx;
+            this.dy = dy;
+            this.length = length;
+        }
+
+        public int getX(int i) {
+            return x + dx * i;
+        }
+
+        public int getY(int i) {
+            return y + dy * i;
+        }
+
+        public int getMinX() {
+            return Math.min(x, getX(length - 1));
+        }
+
+        public int getMaxX() {
+            return Math.max(x, getX(length - 1));
+        }
+
+        public int getMinY() {
+            return Math.min(y, getY(length - 1));
+        }
+
+        public int getMaxY() {
+            return Math.max(y, getY(length - 1));
+        }
+
+        /**
+         * @return whether the run is a single row or column, which covers a rectangle
+         */
+        public boolean isStraight() {
+            return dx == 0 || dy == 0;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package shortestpath;
 
 import net.runelite.api.Client;
 import net.runelite.api.Point;
+import net.runelite.api.RenderOverview;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.widgets.Widget;
 import net.runelite.api.widgets.WidgetInfo;
@@ -10,11 +11,11 @@ import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
 import net.runelite.client.ui.overlay.OverlayPriority;
 import net.runelite.client.ui.overlay.worldmap.WorldMapOverlay;
+import shortestpath.pathfinder.FlagMap;
 
 import javax.inject.Inject;
 import java.awt.*;
 import java.awt.geom.Area;
-import java.util.List;
 
 public class PathMapOverlay extends Overlay {
     private final Client client;
@@ -44,43 +45,89 @@ public class PathMapOverlay extends Overlay {
             return null;
         }
 
+        Rectangle bounds = client.getWidget(WidgetInfo.WORLD_MAP_VIEW).getBounds();
+        RenderOverview renderOverview = client.getRenderOverview();
+        float zoom = renderOverview.getWorldMapZoom();
+        Point center = renderOverview.getWorldMapPosition();
+        int width = (int) Math.ceil(bounds.getWidth() / 2 / zoom) + 1;
+        int height = (int) Math.ceil(bounds.getHeight() / 2 / zoom) + 1;
+        int minX = center.getX() - width;
+        int minY = center.getY() - height;
+        int maxX = center.getX() + width;
+        int maxY = center.getY() + height;
+
+        // The world map shows every plane on top of each other
         if (config.drawTransports()) {
-            for (WorldPoint a : plugin.transports.keySet()) {
-                Point mapA = worldMapOverlay.mapWorldPointToGraphicsPoint(a);
-                if (mapA == null) {
-                    continue;
-                }
-
-                for (WorldPoint b : plugin.transports.get(a)) {
-                    Point mapB = worldMapOverlay.mapWorldPointToGraphicsPoint(b);
-                    if (mapB == null) {
-                        continue;
-                    }
-
-                    graphics.drawLine(mapA.getX(), mapA.getY(), mapB.getX(), mapB.getY());
-                }
+            for (int plane = 0; plane < FlagMap.PLANE_COUNT; plane++) {
+                plugin.transportIndex.forEachOrigin(minX, minY, maxX, maxY, plane, a -> drawTransport(graphics, a));
             }
         }
 
-        mapClipArea = getWorldMapClipArea(client.getWidget(WidgetInfo.WORLD_MAP_VIEW).getBounds());
+        mapClipArea = getWorldMapClipArea(bounds);
 
-        if (plugin.path != null && !plugin.pathUpdateScheduled) {
-            for (WorldPoint point : plugin.path) {
-                drawOnMap(graphics, point, new Color(255, 0, 0, 255));
+        PathResult result = plugin.getPathResult();
+        PathGeometry geometry = result.getGeometry();
+
+        if (geometry != null && !result.isSearching()) {
+            Shape clip = graphics.getClip();
+            graphics.clip(mapClipArea);
+            graphics.setColor(new Color(255, 0, 0, 255));
+
+            for (int plane = 0; plane < FlagMap.PLANE_COUNT; plane++) {
+                geometry.forEachRun(minX, minY, maxX, maxY, plane, run -> drawRun(graphics, run));
             }
-        } else if (plugin.pathUpdateScheduled && plugin.pathfinder != null) {
-            List<WorldPoint> bestPath = plugin.pathfinder.currentBest();
 
-            if (bestPath != null) {
-                for (WorldPoint point : bestPath) {
-                    drawOnMap(graphics, point, new Color(0, 0, 255, 255));
-                }
+            graphics.setClip(clip);
+        } else if (result.getProgress() != null) {
+            for (WorldPoint point : result.getProgress()) {
+                drawOnMap(graphics, point, new Color(0, 0, 255, 255));
             }
         }
 
         return null;
     }
 
+    private void drawTransport(Graphics2D graphics, WorldPoint a) {
+        Point mapA = worldMapOverlay.mapWorldPointToGraphicsPoint(a);
+        if (mapA == null) {
+            return;
+        }
+
+        for (WorldPoint b : plugin.transports.get(a)) {
+            Point mapB = worldMapOverlay.mapWorldPointToGraphicsPoint(b);
+            if (mapB == null) {
+                continue;
+            }
+
+            graphics.drawLine(mapA.getX(), mapA.getY(), mapB.getX(), mapB.getY());
+        }
+    }
+
+    /**
+     * Fills a straight run as one rectangle, going tile by tile only for diagonal runs and runs reaching off the map.
+     */
+    private void drawRun(Graphics2D graphics, PathGeometry.Run run) {
+        if (run.isStraight()) {
+            Point start = worldMapOverlay.mapWorldPointToGraphicsPoint(new WorldPoint(run.getMinX(), run.getMaxY(), run.plane));
+            Point end = worldMapOverlay.mapWorldPointToGraphicsPoint(new WorldPoint(run.getMaxX() + 1, run.getMinY() - 1, run.plane));
+
+            if (start != null && end != null) {
+                graphics.fillRect(start.getX(), start.getY(), end.getX() - start.getX(), end.getY() - start.getY());
+                return;
+            }
+        }
+
+        for (int i = 0; i < run.length; i++) {
+            WorldPoint point = new WorldPoint(run.getX(i), run.getY(i), run.plane);
+            Point start = worldMapOverlay.mapWorldPointToGraphicsPoint(point);
+            Point end = worldMapOverlay.mapWorldPointToGraphicsPoint(point.dx(1).dy(-1));
+
+            if (start != null && end != null) {
+                graphics.fillRect(start.getX(), start.getY(), end.getX() - start.getX(), end.getY() - start.getY());
+            }
+        }
+    }
+
     private void drawOnMap(Graphics2D graphics, WorldPoint point, Color color) {
         Point start = worldMapOverlay.mapWorldPointToGraphicsPoint(point);
         Point end = worldMapOverlay.mapWorldPointToGraphicsPoint(point.dx(1).dy(-1));
@@ -13,11 +13,11 @@ import net.runelite.client.ui.overlay.OverlayPriority;
 
 import javax.inject.Inject;
 import java.awt.*;
-import java.util.Collection;
 
 public class PathMinimapOverlay extends Overlay {
     private static final int TILE_WIDTH = 4;
     private static final int TILE_HEIGHT = 4;
+    private static final int DRAW_DISTANCE = 50;
 
     private final Client client;
     private final ShortestPathPlugin plugin;
@@ -39,26 +39,31 @@ public class PathMinimapOverlay extends Overlay {
             return null;
         }
 
-        if (plugin.path != null) {
-            for (WorldPoint point : plugin.path) {
-                if (point.getPlane() != client.getPlane()) {
-                    continue;
-                }
+        PathGeometry geometry = plugin.getPathResult().getGeometry();
+
+        if (geometry != null) {
+            WorldPoint playerLocation = client.getLocalPlayer().getWorldLocation();
+            int minX = playerLocation.getX() - DRAW_DISTANCE + 1;
+            int minY = playerLocation.getY() - DRAW_DISTANCE + 1;
+            int maxX = playerLocation.getX() + DRAW_DISTANCE - 1;
+            int maxY = playerLocation.getY() + DRAW_DISTANCE - 1;
 
-                drawOnMinimap(graphics, point);
-            }
+            geometry.forEachRun(minX, minY, maxX, maxY, client.getPlane(), run -> {
+                for (int i = 0; i < run.length; i++) {
+                    int x = run.getX(i);
+                    int y = run.getY(i);
+
+                    if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                        drawOnMinimap(graphics, new WorldPoint(x, y, run.plane));
+                    }
+                }
+            });
         }
 
         return null;
     }
 
     private void drawOnMinimap(Graphics2D graphics, WorldPoint point) {
-        WorldPoint playerLocation = client.getLocalPlayer().getWorldLocation();
-
-        if (point.distanceTo(playerLocation) >= 50) {
-            return;
-        }
-
         LocalPoint lp = LocalPoint.fromWorld(client, point);
 
         if (lp == null) {
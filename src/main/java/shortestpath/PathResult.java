@@ -0,0 +1,81 @@
+package shortestpath;
+
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.pathfinder.PathIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The path as the plugin and its overlays see it at one point in time. A new one is published for every change, so
+ * it can be read from any thread without seeing a search half way through.
+ */
+public class PathResult {
+    public static final PathResult NONE = new PathResult(null, null, null, false, null);
+    private final List<WorldPoint> path;
+    private final PathIndex index;
+    private final PathGeometry geometry;
+    private final boolean searching;
+    private final List<WorldPoint> progress;
+
+    private PathResult(List<WorldPoint> path, PathIndex index, PathGeometry geometry, boolean searching, List<WorldPoint> progress) {
+        this.path = path;
+        this.index = index;
+        this.geometry = geometry;
+        this.searching = searching;
+        this.progress = progress;
+    }
+
+    public static PathResult of(List<WorldPoint> path) {
+        if (path == null) {
+            return NONE;
+        }
+
+        return new PathResult(Collections.unmodifiableList(new ArrayList<>(path)), new PathIndex(path), new PathGeometry(path), false, null);
+    }
+
+    /**
+     * @return this path, marked as being replaced by a search in progress
+     */
+    public PathResult searching() {
+        return new PathResult(path, index, geometry, true, null);
+    }
+
+    /**
+     * @return this path, with the best route found so far by the search replacing it
+     */
+    public PathResult withProgress(List<WorldPoint> progress) {
+        return new PathResult(path, index, geometry, true, Collections.unmodifiableList(new ArrayList<>(progress)));
+    }
+
+    /**
+     * @return the last path found, which is kept while a new one is searched for, or null if there is none
+     */
+    public List<WorldPoint> getPath() {
+        return path;
+    }
+
+    /**
+     * @return the index of {@link #getPath()}, whose lookups should only be made from the client thread
+     */
+    public PathIndex getIndex() {
+        return index;
+    }
+
+    public PathGeometry getGeometry() {
+        return geometry;
+    }
+
+    public boolean isSearching() {
+        return searching;
+    }
+
+    /**
+     * @return the route to the tile closest to the target found so far by the search in progress, or null if there is
+     * none yet
+     */
+    public List<WorldPoint> getProgress() {
+        return progress;
+    }
+}
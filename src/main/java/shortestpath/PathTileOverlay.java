@@ -9,11 +9,13 @@ import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
 import net.runelite.client.ui.overlay.OverlayPriority;
+import shortestpath.pathfinder.CollisionMap;
 
 import javax.inject.Inject;
 import java.awt.*;
 
 public class PathTileOverlay extends Overlay {
+    private static final int SCENE_SIZE = 104;
     private final Client client;
     private final ShortestPathPlugin plugin;
     private final ShortestPathConfig config;
@@ -31,39 +33,14 @@ public class PathTileOverlay extends Overlay {
     @Override
     public Dimension render(Graphics2D graphics) {
         if (config.drawTransports()) {
-            for (WorldPoint a : plugin.transports.keySet()) {
-                drawTile(graphics, a, new Color(0, 255, 0, 128));
-
-                Point ca = tileCenter(a);
-
-                if (ca == null) {
-                    continue;
-                }
-
-                for (WorldPoint b : plugin.transports.get(a)) {
-                    Point cb = tileCenter(b);
-
-                    if (cb != null) {
-                        graphics.drawLine(ca.x, ca.y, cb.x, cb.y);
-                    }
-                }
-
-                StringBuilder s = new StringBuilder();
-                for (WorldPoint b : plugin.transports.get(a)) {
-                    if (b.getPlane() > a.getPlane()) {
-                        s.append("+");
-                    } else if (b.getPlane() < a.getPlane()) {
-                        s.append("-");
-                    } else {
-                        s.append("=");
-                    }
-                }
-                graphics.setColor(Color.WHITE);
-                graphics.drawString(s.toString(), ca.x, ca.y);
-            }
+            int baseX = client.getBaseX();
+            int baseY = client.getBaseY();
+            plugin.transportIndex.forEachOrigin(baseX, baseY, baseX + SCENE_SIZE - 1, baseY + SCENE_SIZE - 1, client.getPlane(), a -> drawTransport(graphics, a));
         }
 
-        if (config.drawCollisionMap()) {
+        CollisionMap map = plugin.map;
+
+        if (config.drawCollisionMap() && map != null) {
             for (Tile[] row : client.getScene().getTiles()[client.getPlane()]) {
                 for (Tile tile : row) {
                     if (tile == null) {
@@ -80,10 +57,10 @@ public class PathTileOverlay extends Overlay {
                     int y = tile.getWorldLocation().getY();
                     int z = tile.getWorldLocation().getPlane();
 
-                    String s = (!plugin.map.n(x, y, z) ? "n" : "") +
-                            (!plugin.map.s(x, y, z) ? "s" : "") +
-                            (!plugin.map.e(x, y, z) ? "e" : "") +
-                            (!plugin.map.w(x, y, z) ? "w" : "");
+                    String s = (!map.n(x, y, z) ? "n" : "") +
+                            (!map.s(x, y, z) ? "s" : "") +
+                            (!map.e(x, y, z) ? "e" : "") +
+                            (!map.w(x, y, z) ? "w" : "");
 
                     if (!s.isEmpty() && !s.equals("nsew")) {
                         graphics.setColor(Color.WHITE);
@@ -98,16 +75,53 @@ public class PathTileOverlay extends Overlay {
             }
         }
 
-        if (config.drawTiles() && plugin.path != null) {
-            for (WorldPoint point : plugin.path) {
-                drawTile(graphics, point, new Color(255, 0, 0, 128));
-            }
+        PathGeometry geometry = plugin.getPathResult().getGeometry();
+
+        if (config.drawTiles() && geometry != null) {
+            int baseX = client.getBaseX();
+            int baseY = client.getBaseY();
+            geometry.forEachRun(baseX, baseY, baseX + SCENE_SIZE - 1, baseY + SCENE_SIZE - 1, client.getPlane(), run -> {
+                for (int i = 0; i < run.length; i++) {
+                    drawTile(graphics, new WorldPoint(run.getX(i), run.getY(i), run.plane), new Color(255, 0, 0, 128));
+                }
+            });
         }
 
 
         return null;
     }
 
+    private void drawTransport(Graphics2D graphics, WorldPoint a) {
+        drawTile(graphics, a, new Color(0, 255, 0, 128));
+
+        Point ca = tileCenter(a);
+
+        if (ca == null) {
+            return;
+        }
+
+        for (WorldPoint b : plugin.transports.get(a)) {
+            Point cb = tileCenter(b);
+
+            if (cb != null) {
+                graphics.drawLine(ca.x, ca.y, cb.x, cb.y);
+            }
+        }
+
+        StringBuilder s = new StringBuilder();
+        for (WorldPoint b : plugin.transports.get(a)) {
+            if (b.getPlane() > a.getPlane()) {
+                s.append("+");
+            } else if (b.getPlane() < a.getPlane()) {
+                s.append("-");
+            } else {
+                s.append("=");
+            }
+        }
+        graphics.setColor(Color.WHITE);
+        graphics.drawString(s.toString(), ca.x, ca.y);
+    }
+
     private Point tileCenter(WorldPoint b) {
         if (b.getPlane() != client.getPlane()) {
             return null;
@@ -0,0 +1,224 @@
+package shortestpath;
+
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.CollisionMapFile;
+import shortestpath.pathfinder.CompressedRegionSource;
+import shortestpath.pathfinder.LandmarkTable;
+import shortestpath.pathfinder.RegionGraph;
+import shortestpath.pathfinder.SplitFlagMap;
+import shortestpath.pathfinder.TransportGraph;
+import shortestpath.pathfinder.WorldPointUtil;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+
+/**
+ * Loads what the pathfinder needs from the plugin's resources, and builds the data the faster search algorithms
+ * precompute, without needing a client. Anything built is cached in a directory, under names that change with the
+ * resources it was built from.
+ */
+@Slf4j
+public class PathfinderLoader {
+    private static final int REGION_SIZE = 64;
+    private static final int LANDMARK_COUNT = 8;
+    // Lumbridge, from where the first landmark is picked as the furthest reachable tile
+    private static final int LANDMARK_SEED = WorldPointUtil.pack(3222, 3218, 0);
+    private final File cacheDir;
+    private final Executor executor;
+    private volatile long collisionMapCrc;
+    private volatile long transportsCrc;
+
+    /**
+     * @param cacheDir where to cache the collision map and search data, or null to build them every time
+     * @param executor runs the parts of building them that can be split up
+     */
+    public PathfinderLoader(File cacheDir, Executor executor) {
+        this.cacheDir = cacheDir;
+        this.executor = executor;
+    }
+
+    public CollisionMap loadCollisionMap() {
+        byte[] zip;
+
+        try {
+            zip = Util.readAllBytes(PathfinderLoader.class.getResourceAsStream("/collision-map.zip"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(zip);
+        collisionMapCrc = crc.getValue();
+
+        if (cacheDir == null) {
+            return new CollisionMap(REGION_SIZE, readCompressedRegions(zip));
+        }
+
+        File file = new File(cacheDir, "collision-map-" + Long.toHexString(collisionMapCrc) + ".bin");
+
+        if (file.exists()) {
+            try {
+                return new CollisionMap(CollisionMapFile.open(file));
+            } catch (IOException e) {
+                log.warn("Unable to read the cached collision map at {}, rebuilding it", file, e);
+            }
+        }
+
+        try {
+            CollisionMapFile.write(file, new CompressedRegionSource(REGION_SIZE, readCompressedRegions(zip)), CollisionMap.FLAG_COUNT, executor);
+            deleteStaleCacheFiles("collision-map-", file);
+            return new CollisionMap(CollisionMapFile.open(file));
+        } catch (IOException e) {
+            log.warn("Unable to use the cached collision map at {}, reading it from the plugin instead", file, e);
+            return new CollisionMap(REGION_SIZE, readCompressedRegions(zip));
+        }
+    }
+
+    /**
+     * @return every transport in transports.txt, in the order they are listed
+     */
+    public List<Transport> loadTransports() {
+        byte[] bytes;
+
+        try {
+            bytes = Util.readAllBytes(PathfinderLoader.class.getResourceAsStream("/transports.txt"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        transportsCrc = crc.getValue();
+
+        List<Transport> transports = new ArrayList<>();
+        Scanner scanner = new Scanner(new String(bytes, StandardCharsets.UTF_8));
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine();
+
+            if (line.startsWith("#") || line.isEmpty()) {
+                continue;
+            }
+
+            transports.add(Transport.parse(line));
+        }
+
+        return transports;
+    }
+
+    /**
+     * @param included whether to include each transport, in the order of {@code transports}, or null for all of them
+     */
+    public static TransportGraph compileTransports(List<Transport> transports, boolean[] included) {
+        Map<WorldPoint, List<WorldPoint>> destinations = new HashMap<>();
+        Map<WorldPoint, List<Integer>> durations = new HashMap<>();
+
+        for (int i = 0; i < transports.size(); i++) {
+            Transport transport = transports.get(i);
+
+            if (included == null || included[i]) {
+                destinations.computeIfAbsent(transport.origin, k -> new ArrayList<>()).add(transport.destination);
+                durations.computeIfAbsent(transport.origin, k -> new ArrayList<>()).add(transport.duration);
+            }
+        }
+
+        return new TransportGraph(destinations, durations);
+    }
+
+    /**
+     * Must be called after the collision map and transports have been loaded, which the table is cached by.
+     */
+    public LandmarkTable loadLandmarks(CollisionMap map, TransportGraph transports) {
+        File file = searchDataFile("landmarks-");
+
+        if (file != null && file.exists()) {
+            try {
+                return LandmarkTable.read(file);
+            } catch (IOException e) {
+                log.warn("Unable to read the cached landmark table at {}, rebuilding it", file, e);
+            }
+        }
+
+        LandmarkTable table = LandmarkTable.build(map, transports, LANDMARK_SEED, LANDMARK_COUNT);
+
+        if (file != null) {
+            try {
+                table.write(file);
+                deleteStaleCacheFiles("landmarks-", file);
+            } catch (IOException e) {
+                log.warn("Unable to cache the landmark table at {}", file, e);
+            }
+        }
+
+        return table;
+    }
+
+    /**
+     * Must be called after the collision map and transports have been loaded, which the graph is cached by.
+     */
+    public RegionGraph loadRegionGraph(CollisionMap map, TransportGraph transports) {
+        File file = searchDataFile("region-graph-");
+
+        if (file != null && file.exists()) {
+            try {
+                return RegionGraph.read(file);
+            } catch (IOException e) {
+                log.warn("Unable to read the cached region graph at {}, rebuilding it", file, e);
+            }
+        }
+
+        RegionGraph graph = RegionGraph.build(map, transports, executor);
+
+        if (file != null) {
+            try {
+                graph.write(file);
+                deleteStaleCacheFiles("region-graph-", file);
+            } catch (IOException e) {
+                log.warn("Unable to cache the region graph at {}", file, e);
+            }
+        }
+
+        return graph;
+    }
+
+    private File searchDataFile(String prefix) {
+        if (cacheDir == null) {
+            return null;
+        }
+
+        return new File(cacheDir, prefix + Long.toHexString(collisionMapCrc) + "-" + Long.toHexString(transportsCrc) + ".bin");
+    }
+
+    private static Map<SplitFlagMap.Position, byte[]> readCompressedRegions(byte[] zip) {
+        try {
+            return CompressedRegionSource.readZip(new ByteArrayInputStream(zip));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteStaleCacheFiles(String prefix, File current) {
+        File[] files = cacheDir.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(".bin"));
+
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            if (!file.equals(current) && !file.delete()) {
+                log.debug("Unable to delete stale cache file {}", file);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package shortestpath;
+
+import shortestpath.pathfinder.SearchStats;
+
+/**
+ * What the plugin's last search did and why it ran, along with how much of the collision map has been loaded so far.
+ */
+public class PathfinderStats {
+    public static final PathfinderStats NONE = new PathfinderStats(null, null, null, 0, 0);
+    // Of the last search, all null if there hasn't been one
+    private final Reason reason;
+    // The algorithm, or "Reused search" when the incremental search tree answered it
+    private final String searchedWith;
+    private final SearchStats search;
+    // Regions of the collision map decoded so far, and the time taken decoding them
+    private final int regionsLoaded;
+    private final long decodeNanos;
+
+    public PathfinderStats(Reason reason, String searchedWith, SearchStats search, int regionsLoaded, long decodeNanos) {
+        this.reason = reason;
+        this.searchedWith = searchedWith;
+        this.search = search;
+        this.regionsLoaded = regionsLoaded;
+        this.decodeNanos = decodeNanos;
+    }
+
+    public PathfinderStats withRegions(int regionsLoaded, long decodeNanos) {
+        return new PathfinderStats(reason, searchedWith, search, regionsLoaded, decodeNanos);
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public String getSearchedWith() {
+        return searchedWith;
+    }
+
+    public SearchStats getSearch() {
+        return search;
+    }
+
+    public int getRegionsLoaded() {
+        return regionsLoaded;
+    }
+
+    public long getDecodeNanos() {
+        return decodeNanos;
+    }
+
+    public enum Reason {
+        TARGET_CHANGED("Target changed"),
+        LEFT_PATH("Left path"),
+        TRANSPORTS_CHANGED("Transports changed");
+
+        private final String name;
+
+        Reason(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.Range;
+import shortestpath.pathfinder.SearchAlgorithm;
 
 @ConfigGroup("shortestPath")
 public interface ShortestPathConfig extends Config {
@@ -49,8 +50,38 @@ public interface ShortestPathConfig extends Config {
         return 5;
     }
 
+    @ConfigItem(keyName = "endAtFinishDistance", name = "End path at finish distance", description = "Whether the path should end at the first tile within the finish distance of the target, rather than at the target. Searches much less around targets that are hard to reach, but hierarchical and A* with landmarks search like A* when it is used, and the search isn't reused when rerouting")
+    default boolean endAtFinishDistance() {
+        return false;
+    }
+
     @ConfigItem(keyName = "avoidWilderness", name = "Avoid wilderness", description = "Whether the wilderness should be avoided if possible (otherwise, will suggest using wilderness lever to travel from Edgeville to Ardougne)")
     default boolean avoidWilderness() {
         return true;
     }
+
+    @ConfigItem(keyName = "algorithm", name = "Search algorithm", description = "A* expands far fewer tiles on long routes, breadth-first, bidirectional and A* with landmarks always find the shortest route when transports are involved, hierarchical searches a precomputed region graph first and is fastest on very long routes at the cost of slightly longer paths")
+    default SearchAlgorithm algorithm() {
+        return SearchAlgorithm.A_STAR;
+    }
+
+    @ConfigItem(keyName = "incrementalReplanning", name = "Reuse search when rerouting", description = "Keeps a search rooted at the target and only extends it when the player leaves the path, instead of searching again. Used in place of the search algorithm, but still finds the shortest route whenever that algorithm would. Not used when the path ends at the finish distance")
+    default boolean incrementalReplanning() {
+        return false;
+    }
+
+    @ConfigItem(keyName = "completeSearchTree", name = "Search ahead from target", description = "When reusing the search, keeps extending it while idle until every tile the target can be reached from is covered, so later reroutes only follow it. Takes more memory, which is given back when it runs low")
+    default boolean completeSearchTree() {
+        return false;
+    }
+
+    @ConfigItem(keyName = "warmUpRegions", name = "Preload nearby regions", description = "Whether the collision map around the player should be loaded in the background before a path is requested")
+    default boolean warmUpRegions() {
+        return true;
+    }
+
+    @ConfigItem(keyName = "drawDebugInfo", name = "Show search stats", description = "Whether to show how much work the last search did, why it ran and how much of the collision map has been loaded")
+    default boolean drawDebugInfo() {
+        return false;
+    }
 }
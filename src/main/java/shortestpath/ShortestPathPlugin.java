@@ -1,17 +1,25 @@
 package shortestpath;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Provides;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Point;
 import net.runelite.api.*;
-import net.runelite.api.coords.WorldArea;
 import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.MenuEntryAdded;
 import net.runelite.api.events.MenuOpened;
 import net.runelite.api.events.MenuOptionClicked;
+import net.runelite.api.events.StatChanged;
+import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.widgets.Widget;
+import net.runelite.api.widgets.WidgetID;
 import net.runelite.api.widgets.WidgetInfo;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
@@ -22,30 +30,43 @@ import net.runelite.client.ui.overlay.worldmap.WorldMapPointManager;
 import net.runelite.client.util.ImageUtil;
 import net.runelite.client.util.Text;
 import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.Goal;
+import shortestpath.pathfinder.IncrementalPathfinder;
+import shortestpath.pathfinder.LandmarkTable;
 import shortestpath.pathfinder.Pathfinder;
-import shortestpath.pathfinder.SplitFlagMap;
+import shortestpath.pathfinder.RegionGraph;
+import shortestpath.pathfinder.SearchAlgorithm;
+import shortestpath.pathfinder.TransportGraph;
+import shortestpath.pathfinder.Wilderness;
 
 import javax.inject.Inject;
 import java.awt.*;
 import java.awt.datatransfer.StringSelection;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.nio.charset.StandardCharsets;
+import java.io.File;
+import java.lang.ref.SoftReference;
 import java.util.List;
 import java.util.*;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+@Slf4j
 @PluginDescriptor(name = "Shortest Path", description = "Draws the shortest path to a chosen destination on the map (right click a spot on the world map to use)")
 public class ShortestPathPlugin extends Plugin {
-    private static final WorldArea WILDERNESS_ABOVE_GROUND = new WorldArea(2944, 3523, 448, 448, 0);
-    private static final WorldArea WILDERNESS_UNDERGROUND = new WorldArea(2944, 9918, 320, 442, 0);
+    private static final File CACHE_DIR = new File(RuneLite.CACHE_DIR, "shortest-path");
+    private static final int LOADER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final int WARM_UP_RADIUS = 128;
     @Inject
     public Client client;
     @Inject
     public ShortestPathConfig config;
     @Inject
+    private ClientThread clientThread;
+    @Inject
     public OverlayManager overlayManager;
     @Inject
     public PathTileOverlay pathOverlay;
@@ -54,96 +75,364 @@ public class ShortestPathPlugin extends Plugin {
     @Inject
     public PathMapOverlay pathMapOverlay;
     @Inject
+    private PathDebugOverlay pathDebugOverlay;
+    @Inject
     private WorldMapPointManager worldMapPointManager;
     @Inject
     private WorldMapOverlay worldMapOverlay;
-    public CollisionMap map;
-    public List<WorldPoint> path = null;
+    public volatile CollisionMap map;
+    private volatile RegionGraph regionGraph;
+    private volatile LandmarkTable landmarks;
+    // Only replaced while holding the plugin's lock, so that a superseded search can't overwrite a newer one
+    private final AtomicReference<PathResult> pathResult = new AtomicReference<>(PathResult.NONE);
+    // Set along with the path result of the search it describes
+    private volatile PathfinderStats stats = PathfinderStats.NONE;
     private WorldPoint target = null;
-    private boolean running;
     private Point lastMenuOpenedPoint;
     public WorldMapPoint marker;
     private static final BufferedImage MARKER_IMAGE = ImageUtil.getResourceStreamFromClass(ShortestPathPlugin.class, "/marker.png");
-    public boolean pathUpdateScheduled = false;
     public final Map<WorldPoint, List<WorldPoint>> transports = new HashMap<>();
-    public Pathfinder pathfinder;
+    private final List<Transport> allTransports = new ArrayList<>();
+    public volatile TransportIndex transportIndex;
+    // Every transport, which the cached search data is built from
+    private volatile TransportGraph transportGraph;
+    // The transports the player meets the requirements of, which searches use
+    private volatile TransportGraph usableTransports;
+    private boolean[] usable;
+    // The real level of each skill as last seen, since StatChanged also fires for every drop of experience
+    private final Map<Skill, Integer> realLevels = new EnumMap<>(Skill.class);
+    // Set when a level goes up or a quest is completed, so that the requirements are checked once on the next tick
+    private boolean requirementsChanged;
+    private volatile Pathfinder pathfinder;
     private WorldPoint transportStart;
     private MenuOptionClicked lastClick;
+    private ExecutorService loader;
+    private PathfinderLoader dataLoader;
+    private volatile CompletableFuture<CollisionMap> collisionMapLoad;
+    // Runs one search at a time, and skips or cancels any search that a newer request has superseded
+    private ExecutorService pathfinding;
+    private final AtomicInteger pathGeneration = new AtomicInteger();
+    // Replaced when the target changes, and left for the garbage collector to drop when memory runs low
+    private volatile SoftReference<IncrementalPathfinder> replanner;
+    private int lastRegionId = -1;
+    private CompletableFuture<RegionGraph> regionGraphLoad;
+    private CompletableFuture<LandmarkTable> landmarksLoad;
 
     @Override
     protected void startUp() {
-        Map<SplitFlagMap.Position, byte[]> compressedRegions = new HashMap<>();
-
-        try (ZipInputStream in = new ZipInputStream(ShortestPathPlugin.class.getResourceAsStream("/collision-map.zip"))) {
-            ZipEntry entry;
-            while ((entry = in.getNextEntry()) != null) {
-                String[] n = entry.getName().split("_");
+        loader = Executors.newFixedThreadPool(LOADER_THREADS, new ThreadFactoryBuilder()
+                .setNameFormat("shortest-path-loader-%d")
+                .setDaemon(true)
+                .build());
+        pathfinding = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("shortest-path-pathfinder")
+                .setDaemon(true)
+                .build());
+        dataLoader = new PathfinderLoader(CACHE_DIR, loader);
+
+        allTransports.addAll(dataLoader.loadTransports());
+        for (Transport transport : allTransports) {
+            transports.computeIfAbsent(transport.origin, k -> new ArrayList<>()).add(transport.destination);
+        }
 
-                compressedRegions.put(
-                        new SplitFlagMap.Position(Integer.parseInt(n[0]), Integer.parseInt(n[1])),
-                        Util.readAllBytes(in)
-                );
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+        transportGraph = PathfinderLoader.compileTransports(allTransports, null);
+        // Until the player's levels and quests can be checked, only transports without requirements are used
+        boolean[] withoutRequirements = new boolean[allTransports.size()];
+        for (int i = 0; i < withoutRequirements.length; i++) {
+            withoutRequirements[i] = allTransports.get(i).requirements.isEmpty();
         }
+        usableTransports = PathfinderLoader.compileTransports(allTransports, withoutRequirements);
+        transportIndex = new TransportIndex(transports.keySet());
+        clientThread.invokeLater(this::updateUsableTransports);
 
-        map = new CollisionMap(64, compressedRegions);
+        // Started once the transports are compiled, which the search data loaded along with the map is built from
+        CompletableFuture<CollisionMap> load = CompletableFuture.supplyAsync(dataLoader::loadCollisionMap, loader);
+        collisionMapLoad = load;
+        load.whenComplete((loaded, e) -> collisionMapLoaded(load, loaded, e));
 
-        try {
-            String s = new String(Util.readAllBytes(ShortestPathPlugin.class.getResourceAsStream("/transports.txt")), StandardCharsets.UTF_8);
-            Scanner scanner = new Scanner(s);
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
+        overlayManager.add(pathOverlay);
+        overlayManager.add(pathMinimapOverlay);
+        overlayManager.add(pathMapOverlay);
+        overlayManager.add(pathDebugOverlay);
+    }
 
-                if (line.startsWith("#") || line.isEmpty()) {
-                    continue;
-                }
+    private synchronized void collisionMapLoaded(CompletableFuture<CollisionMap> load, CollisionMap loaded, Throwable e) {
+        // A load that finishes after the plugin has been shut down belongs to a loader that is gone
+        if (load != collisionMapLoad) {
+            return;
+        }
 
-                String[] l = line.split(" ");
-                WorldPoint a = new WorldPoint(Integer.parseInt(l[0]), Integer.parseInt(l[1]), Integer.parseInt(l[2]));
-                WorldPoint b = new WorldPoint(Integer.parseInt(l[3]), Integer.parseInt(l[4]), Integer.parseInt(l[5]));
-                transports.computeIfAbsent(a, k -> new ArrayList<>()).add(b);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        if (e != null) {
+            log.error("Unable to load the collision map", e);
+        } else {
+            map = loaded;
+            loadSearchDataIfNeeded();
         }
+    }
 
-        running = true;
+    /**
+     * Loads or builds the precomputed data the configured search algorithm needs, if it isn't loaded yet.
+     */
+    private synchronized void loadSearchDataIfNeeded() {
+        CollisionMap map = this.map;
 
-        new Thread(() -> {
-            while (running) {
-                if (pathUpdateScheduled) {
-                    if (target == null) {
-                        path = null;
-                    } else {
-                        pathfinder = new Pathfinder(map, transports, client.getLocalPlayer().getWorldLocation(), target, config.avoidWilderness() && !isInWilderness(target));
-                        path = pathfinder.find();
-                        pathUpdateScheduled = false;
-                    }
-                }
+        if (map == null) {
+            return;
+        }
 
-                Util.sleep(10);
-            }
-        }).start();
+        TransportGraph transports = transportGraph;
 
-        overlayManager.add(pathOverlay);
-        overlayManager.add(pathMinimapOverlay);
-        overlayManager.add(pathMapOverlay);
+        if (regionGraphLoad == null && config.algorithm() == SearchAlgorithm.HIERARCHICAL) {
+            regionGraphLoad = CompletableFuture.supplyAsync(() -> dataLoader.loadRegionGraph(map, transports), loader);
+            regionGraphLoad.whenComplete((loaded, e) -> {
+                if (e != null) {
+                    log.error("Unable to build the region graph", e);
+                } else if (transports == transportGraph) {
+                    regionGraph = loaded;
+                }
+            });
+        }
+
+        if (landmarksLoad == null && config.algorithm() == SearchAlgorithm.LANDMARKS) {
+            landmarksLoad = CompletableFuture.supplyAsync(() -> dataLoader.loadLandmarks(map, transports), loader);
+            landmarksLoad.whenComplete((loaded, e) -> {
+                if (e != null) {
+                    log.error("Unable to build the landmark table", e);
+                } else if (transports == transportGraph) {
+                    landmarks = loaded;
+                }
+            });
+        }
     }
 
     @Override
     protected void shutDown() {
-        map = null;
-        running = false;
+        cancelPathUpdate();
+        pathfinding.shutdownNow();
+        replanner = null;
+
+        synchronized (this) {
+            collisionMapLoad = null;
+            map = null;
+            regionGraph = null;
+            regionGraphLoad = null;
+            landmarks = null;
+            landmarksLoad = null;
+        }
+
+        loader.shutdownNow();
+        lastRegionId = -1;
+        allTransports.clear();
+        transports.clear();
+        usable = null;
+        realLevels.clear();
+        requirementsChanged = false;
         overlayManager.remove(pathOverlay);
         overlayManager.remove(pathMinimapOverlay);
         overlayManager.add(pathMapOverlay);
+        overlayManager.remove(pathDebugOverlay);
     }
 
-    public static boolean isInWilderness(WorldPoint p) {
-        return WILDERNESS_ABOVE_GROUND.distanceTo(p) == 0 ||
-                WILDERNESS_UNDERGROUND.distanceTo(p) == 0;
+    /**
+     * Starts finding a path from the player to the target, superseding any search still in progress. Must be called on
+     * the client thread.
+     *
+     * @param reason what made the path change, which is kept with the stats of the search
+     */
+    private synchronized void schedulePathUpdate(PathfinderStats.Reason reason) {
+        int generation = pathGeneration.incrementAndGet();
+        cancelCurrentPathfinder();
+
+        if (target == null) {
+            pathResult.set(PathResult.NONE);
+            replanner = null;
+            return;
+        }
+
+        pathResult.set(pathResult.get().searching());
+        WorldPoint start = client.getLocalPlayer().getWorldLocation();
+        WorldPoint target = this.target;
+        boolean avoidWilderness = config.avoidWilderness() && !Wilderness.contains(target);
+        SearchAlgorithm algorithm = config.algorithm();
+        boolean completeSearchTree = config.completeSearchTree();
+        // Ending where the player counts as arrived saves searching the tiles around a target that is hard to reach
+        boolean endWithin = config.endAtFinishDistance() && config.reachedDistance() > 0;
+        Goal goal = endWithin ? Goal.within(target, config.reachedDistance() - 1) : Goal.of(target);
+        // The reused search is rooted at the target tile alone, so it would walk all the way there
+        boolean incremental = config.incrementalReplanning() && !endWithin;
+        CompletableFuture<CollisionMap> collisionMapLoad = this.collisionMapLoad;
+
+        pathfinding.execute(() -> {
+            if (generation != pathGeneration.get()) {
+                return;
+            }
+
+            CollisionMap map;
+            try {
+                map = collisionMapLoad.join();
+            } catch (RuntimeException e) {
+                return;
+            }
+
+            if (incremental) {
+                BooleanSupplier cancelled = () -> generation != pathGeneration.get();
+                IncrementalPathfinder replanner = replanner(map, target, avoidWilderness, algorithm);
+                List<WorldPoint> path = replanner.find(start, cancelled);
+
+                if (path != null) {
+                    finishPathfinder(generation, path, new PathfinderStats(reason, "Reused search", replanner.getStats(), 0, 0));
+                    // Uses the time until the next update to make later reroutes from anywhere only follow the tree
+                    if (completeSearchTree) {
+                        replanner.complete(cancelled);
+                    }
+                    return;
+                } else if (cancelled.getAsBoolean()) {
+                    return;
+                }
+                // The target can't be reached from here, which a full search handles by finding the closest tile
+            }
+
+            Pathfinder pathfinder = new Pathfinder(map, usableTransports, regionGraph, landmarks, start, goal, avoidWilderness, algorithm);
+            pathfinder.setProgressListener(best -> publishProgress(generation, best));
+            if (startPathfinder(generation, pathfinder)) {
+                List<WorldPoint> path = pathfinder.find();
+                finishPathfinder(generation, path, new PathfinderStats(reason, algorithm.toString(), pathfinder.getStats(), 0, 0));
+            }
+        });
+    }
+
+    private IncrementalPathfinder replanner(CollisionMap map, WorldPoint target, boolean avoidWilderness, SearchAlgorithm algorithm) {
+        // The heuristic makes the first search much faster, but only the algorithms that use one may give longer routes
+        boolean useHeuristic = algorithm == SearchAlgorithm.A_STAR || algorithm == SearchAlgorithm.JUMP_POINT || algorithm == SearchAlgorithm.HIERARCHICAL;
+        SoftReference<IncrementalPathfinder> reference = this.replanner;
+        IncrementalPathfinder replanner = reference == null ? null : reference.get();
+
+        TransportGraph transports = usableTransports;
+
+        if (replanner == null || !replanner.isFor(map, transports, target, avoidWilderness, useHeuristic)) {
+            // Drop the old tree before building its replacement, rather than holding both
+            this.replanner = null;
+            replanner = new IncrementalPathfinder(map, transports, target, avoidWilderness, useHeuristic);
+            this.replanner = new SoftReference<>(replanner);
+        }
+
+        return replanner;
+    }
+
+    private synchronized void cancelPathUpdate() {
+        pathGeneration.incrementAndGet();
+        cancelCurrentPathfinder();
+        pathResult.set(PathResult.NONE);
+    }
+
+    private void cancelCurrentPathfinder() {
+        Pathfinder pathfinder = this.pathfinder;
+
+        if (pathfinder != null) {
+            pathfinder.cancel();
+        }
+    }
+
+    private synchronized boolean startPathfinder(int generation, Pathfinder pathfinder) {
+        if (generation != pathGeneration.get()) {
+            return false;
+        }
+
+        this.pathfinder = pathfinder;
+        return true;
+    }
+
+    private synchronized void publishProgress(int generation, List<WorldPoint> best) {
+        if (generation == pathGeneration.get()) {
+            pathResult.set(pathResult.get().withProgress(best));
+        }
+    }
+
+    private void finishPathfinder(int generation, List<WorldPoint> path, PathfinderStats stats) {
+        // Built before taking the lock, which the client thread may be waiting for
+        PathResult result = PathResult.of(path);
+
+        synchronized (this) {
+            if (generation == pathGeneration.get()) {
+                pathResult.set(result);
+                this.stats = stats;
+            }
+        }
+    }
+
+    public PathResult getPathResult() {
+        return pathResult.get();
+    }
+
+    /**
+     * @return a snapshot of what the last search did, and of how much of the collision map has been loaded
+     */
+    public PathfinderStats getStats() {
+        CollisionMap map = this.map;
+        PathfinderStats stats = this.stats;
+        return map == null ? stats : stats.withRegions(map.getRegionsLoaded(), map.getDecodeNanos());
+    }
+
+    /**
+     * Checks the requirements of every transport against the player, and searches again if that changes which ones
+     * they can use. Must be called on the client thread.
+     */
+    private void updateUsableTransports() {
+        if (client.getGameState() != GameState.LOGGED_IN) {
+            return;
+        }
+
+        Map<Quest, Boolean> completed = new EnumMap<>(Quest.class);
+        boolean[] usable = new boolean[allTransports.size()];
+
+        for (int i = 0; i < usable.length; i++) {
+            usable[i] = allTransports.get(i).requirements.isMetBy(client::getRealSkillLevel,
+                    quest -> completed.computeIfAbsent(quest, q -> q.getState(client) == QuestState.FINISHED));
+        }
+
+        if (Arrays.equals(usable, this.usable)) {
+            return;
+        }
+
+        this.usable = usable;
+        usableTransports = PathfinderLoader.compileTransports(allTransports, usable);
+
+        if (target != null) {
+            schedulePathUpdate(PathfinderStats.Reason.TRANSPORTS_CHANGED);
+        }
+    }
+
+    @Subscribe
+    public void onGameStateChanged(GameStateChanged event) {
+        if (event.getGameState() == GameState.LOGGED_IN) {
+            updateUsableTransports();
+        } else if (event.getGameState() == GameState.LOGIN_SCREEN) {
+            // The next login may be another account
+            realLevels.clear();
+        }
+    }
+
+    @Subscribe
+    public void onStatChanged(StatChanged event) {
+        Integer previous = realLevels.put(event.getSkill(), event.getLevel());
+
+        if (previous == null || previous != event.getLevel()) {
+            requirementsChanged = true;
+        }
+    }
+
+    @Subscribe
+    public void onWidgetLoaded(WidgetLoaded event) {
+        if (event.getGroupId() == WidgetID.QUEST_COMPLETED_GROUP_ID) {
+            requirementsChanged = true;
+        }
+    }
+
+    @Subscribe
+    public void onConfigChanged(ConfigChanged event) {
+        if (event.getGroup().equals("shortestPath") && event.getKey().equals("algorithm")) {
+            loadSearchDataIfNeeded();
+        }
     }
 
     @Subscribe
@@ -153,29 +442,38 @@ public class ShortestPathPlugin extends Plugin {
 
     @Subscribe
     public void onGameTick(GameTick tick) {
-        if (path != null) {
-            if (!isNearPath()) {
+        if (requirementsChanged) {
+            requirementsChanged = false;
+            updateUsableTransports();
+        }
+
+        WorldPoint playerLocation = client.getLocalPlayer().getWorldLocation();
+        CollisionMap map = this.map;
+
+        if (config.warmUpRegions() && map != null && playerLocation.getRegionID() != lastRegionId) {
+            lastRegionId = playerLocation.getRegionID();
+            map.warmUp(playerLocation.getX(), playerLocation.getY(), WARM_UP_RADIUS, loader);
+        }
+
+        // A search already in progress starts from where the player was when it was requested, so leave it to finish
+        PathResult result = pathResult.get();
+
+        if (result.getPath() != null && !result.isSearching()) {
+            if (!isNearPath(result)) {
                 if (config.cancelInstead()) {
                     target = null;
                 }
 
-                pathUpdateScheduled = true;
-            }
-
-            if (client.getLocalPlayer().getWorldLocation().distanceTo(target) < config.reachedDistance()) {
+                schedulePathUpdate(PathfinderStats.Reason.LEFT_PATH);
+            } else if (client.getLocalPlayer().getWorldLocation().distanceTo(target) < config.reachedDistance()) {
                 target = null;
-                pathUpdateScheduled = true;
+                schedulePathUpdate(PathfinderStats.Reason.TARGET_CHANGED);
             }
         }
     }
 
-    private boolean isNearPath() {
-        for (WorldPoint point : path) {
-            if (client.getLocalPlayer().getWorldLocation().distanceTo(point) < config.recalculateDistance()) {
-                return true;
-            }
-        }
-        return false;
+    private boolean isNearPath(PathResult result) {
+        return result.getIndex().find(client.getLocalPlayer().getWorldLocation(), config.recalculateDistance()) >= 0;
     }
 
     @Subscribe
@@ -211,6 +509,14 @@ public class ShortestPathPlugin extends Plugin {
                     lastClick.getMenuOption() + " " + Text.removeTags(lastClick.getMenuTarget()) + " " + lastClick.getId()
             );
             transports.computeIfAbsent(transportStart, k -> new ArrayList<>()).add(transportEnd);
+            allTransports.add(new Transport(transportStart, transportEnd, 1, TransportRequirements.NONE));
+            transportGraph = PathfinderLoader.compileTransports(allTransports, null);
+            usable = null;
+            updateUsableTransports();
+            transportIndex = new TransportIndex(transports.keySet());
+            // The cached search data doesn't know about transports recorded in game, so searches go without it
+            regionGraph = null;
+            landmarks = null;
         }
 
         if (event.getMenuOption().equals("Copy Position")) {
@@ -232,7 +538,7 @@ public class ShortestPathPlugin extends Plugin {
 
     private void setTarget(WorldPoint target) {
         this.target = target;
-        pathUpdateScheduled = true;
+        schedulePathUpdate(PathfinderStats.Reason.TARGET_CHANGED);
 
         if (target == null) {
             worldMapPointManager.remove(marker);
@@ -0,0 +1,38 @@
+package shortestpath;
+
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * A line of transports.txt.
+ */
+public class Transport {
+    // Marks the optional last field of a line giving how many ticks the transport takes
+    private static final String DURATION_PREFIX = "duration=";
+    public final WorldPoint origin;
+    public final WorldPoint destination;
+    public final int duration;
+    public final TransportRequirements requirements;
+
+    public Transport(WorldPoint origin, WorldPoint destination, int duration, TransportRequirements requirements) {
+        this.origin = origin;
+        this.destination = destination;
+        this.duration = duration;
+        this.requirements = requirements;
+    }
+
+    public static Transport parse(String line) {
+        String[] l = line.split(" ");
+        WorldPoint origin = new WorldPoint(Integer.parseInt(l[0]), Integer.parseInt(l[1]), Integer.parseInt(l[2]));
+        WorldPoint destination = new WorldPoint(Integer.parseInt(l[3]), Integer.parseInt(l[4]), Integer.parseInt(l[5]));
+
+        String last = l[l.length - 1];
+        int duration = last.startsWith(DURATION_PREFIX) ? Integer.parseInt(last.substring(DURATION_PREFIX.length())) : 1;
+
+        int quote = line.indexOf('"');
+        int endQuote = line.lastIndexOf('"');
+        TransportRequirements requirements = quote >= 0 && endQuote > quote ?
+                TransportRequirements.parse(line.substring(quote + 1, endQuote)) : TransportRequirements.NONE;
+
+        return new Transport(origin, destination, duration, requirements);
+    }
+}
@@ -0,0 +1,49 @@
+package shortestpath;
+
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.pathfinder.WorldPointUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Transport origins bucketed by region and plane, so the overlays only go through the ones they can show.
+ */
+public class TransportIndex {
+    private static final int REGION_SHIFT = 6;
+    private final Map<Integer, List<WorldPoint>> regions = new HashMap<>();
+
+    public TransportIndex(Iterable<WorldPoint> origins) {
+        for (WorldPoint origin : origins) {
+            regions.computeIfAbsent(region(origin.getX() >> REGION_SHIFT, origin.getY() >> REGION_SHIFT, origin.getPlane()), k -> new ArrayList<>()).add(origin);
+        }
+    }
+
+    /**
+     * Calls {@code action} for each origin on {@code plane} within the given bounds, inclusive.
+     */
+    public void forEachOrigin(int minX, int minY, int maxX, int maxY, int plane, Consumer<WorldPoint> action) {
+        for (int regionY = Math.max(0, minY) >> REGION_SHIFT; regionY <= maxY >> REGION_SHIFT; regionY++) {
+            for (int regionX = Math.max(0, minX) >> REGION_SHIFT; regionX <= maxX >> REGION_SHIFT; regionX++) {
+                List<WorldPoint> origins = regions.get(region(regionX, regionY, plane));
+
+                if (origins == null) {
+                    continue;
+                }
+
+                for (WorldPoint origin : origins) {
+                    if (origin.getX() >= minX && origin.getX() <= maxX && origin.getY() >= minY && origin.getY() <= maxY) {
+                        action.accept(origin);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int region(int regionX, int regionY, int plane) {
+        return WorldPointUtil.pack(regionX, regionY, plane);
+    }
+}
@@ -0,0 +1,97 @@
+package shortestpath;
+
+import net.runelite.api.Quest;
+import net.runelite.api.Skill;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The skill levels and quests asked for by the quoted notes in transports.txt. The notes are written for people, so
+ * whatever else they say is left for the player to deal with and doesn't stop the transport from being used.
+ */
+public class TransportRequirements {
+    public static final TransportRequirements NONE = new TransportRequirements(Collections.emptyMap(), Collections.emptySet());
+    private static final Pattern SKILL_LEVEL = Pattern.compile("(\\d+) (\\w+)");
+    private static final String COMPLETED_QUEST_PREFIX = "After ";
+    private final Map<Skill, Integer> levels;
+    private final Set<Quest> quests;
+
+    private TransportRequirements(Map<Skill, Integer> levels, Set<Quest> quests) {
+        this.levels = levels;
+        this.quests = quests;
+    }
+
+    /**
+     * Reads comma-separated notes like "42 Agility", "Fishing Contest" or "After Waterfall Quest".
+     */
+    public static TransportRequirements parse(String text) {
+        Map<Skill, Integer> levels = new EnumMap<>(Skill.class);
+        Set<Quest> quests = EnumSet.noneOf(Quest.class);
+
+        for (String note : text.split(",")) {
+            note = note.trim();
+            Matcher matcher = SKILL_LEVEL.matcher(note);
+            Skill skill = matcher.matches() ? skill(matcher.group(2)) : null;
+
+            if (skill != null) {
+                levels.merge(skill, Integer.parseInt(matcher.group(1)), Math::max);
+                continue;
+            }
+
+            Quest quest = quest(note.startsWith(COMPLETED_QUEST_PREFIX) ? note.substring(COMPLETED_QUEST_PREFIX.length()) : note);
+            if (quest != null) {
+                quests.add(quest);
+            }
+        }
+
+        return levels.isEmpty() && quests.isEmpty() ? NONE : new TransportRequirements(levels, quests);
+    }
+
+    public boolean isEmpty() {
+        return levels.isEmpty() && quests.isEmpty();
+    }
+
+    public boolean isMetBy(ToIntFunction<Skill> level, Predicate<Quest> completed) {
+        for (Map.Entry<Skill, Integer> entry : levels.entrySet()) {
+            if (level.applyAsInt(entry.getKey()) < entry.getValue()) {
+                return false;
+            }
+        }
+
+        for (Quest quest : quests) {
+            if (!completed.test(quest)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static Skill skill(String name) {
+        for (Skill skill : Skill.values()) {
+            if (skill.getName().equalsIgnoreCase(name)) {
+                return skill;
+            }
+        }
+
+        return null;
+    }
+
+    private static Quest quest(String name) {
+        for (Quest quest : Quest.values()) {
+            if (quest.getName().equalsIgnoreCase(name)) {
+                return quest;
+            }
+        }
+
+        return null;
+    }
+}
@@ -1,8 +1,17 @@
 package shortestpath;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
 
 public class Util {
     public static byte[] readAllBytes(InputStream in) throws IOException {
@@ -20,10 +29,61 @@ public class Util {
         }
     }
 
-    public static void sleep(int time) {
+    public static void writeAtomically(File file, byte[] bytes) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+        File temporary = File.createTempFile(file.getName(), ".tmp", parent);
+
+        try {
+            Files.write(temporary.toPath(), bytes);
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * Calls {@code task} with every index below {@code count}, spread over {@code executor} and the calling thread.
+     * The calling thread takes indices too and only waits for those another thread has already started, so it can't
+     * block on work queued behind it when it is one of the executor's own threads.
+     */
+    public static void forEachIndex(int count, IntConsumer task, Executor executor) {
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(count);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                try {
+                    task.accept(i);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+
+        // Helpers that only start once every index is taken return straight away
+        int helpers = Math.min(count, Runtime.getRuntime().availableProcessors()) - 1;
+        for (int i = 0; i < helpers; i++) {
+            executor.execute(worker);
+        }
+
+        worker.run();
+
         try {
-            Thread.sleep(time);
-        } catch (InterruptedException ignored) {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for other threads");
+        }
+
+        // An IntConsumer can only throw unchecked exceptions
+        Throwable e = failure.get();
+        if (e instanceof Error) {
+            throw (Error) e;
+        } else if (e != null) {
+            throw (RuntimeException) e;
         }
     }
 }
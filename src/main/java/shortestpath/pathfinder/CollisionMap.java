@@ -1,10 +1,36 @@
 package shortestpath.pathfinder;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class CollisionMap extends SplitFlagMap {
+    // Movement bits, in the order the pathfinder has always expanded neighbours
+    public static final int WEST = 1;
+    public static final int EAST = 1 << 1;
+    public static final int SOUTH = 1 << 2;
+    public static final int NORTH = 1 << 3;
+    public static final int SOUTH_WEST = 1 << 4;
+    public static final int SOUTH_EAST = 1 << 5;
+    public static final int NORTH_WEST = 1 << 6;
+    public static final int NORTH_EAST = 1 << 7;
+    public static final int DIRECTION_COUNT = 8;
+    public static final int[] DX = {-1, 1, 0, 0, -1, 1, -1, 1};
+    public static final int[] DY = {0, 0, -1, 1, -1, -1, 1, 1};
+    public static final int FLAG_COUNT = 2;
+
+    private final AtomicReferenceArray<byte[]> movementMasks;
+    private final Map<ByteBuffer, byte[]> distinctMovementMasks = new ConcurrentHashMap<>();
+
     public CollisionMap(int regionSize, Map<Position, byte[]> compressedRegions) {
-        super(regionSize, compressedRegions, 2);
+        this(new CompressedRegionSource(regionSize, compressedRegions));
+    }
+
+    public CollisionMap(RegionSource source) {
+        super(source, FLAG_COUNT);
+        movementMasks = new AtomicReferenceArray<>(widthInRegions * heightInRegions * FlagMap.PLANE_COUNT);
     }
 
     public boolean n(int x, int y, int z) {
@@ -38,4 +64,71 @@ public class CollisionMap extends SplitFlagMap {
     public boolean sw(int x, int y, int z) {
         return s(x, y, z) && w(x, y - 1, z) && w(x, y, z) && s(x - 1, y, z);
     }
+
+    public int movementMask(int x, int y, int z) {
+        int index = regionIndex(x, y);
+
+        if (index < 0 || z < 0 || z > FlagMap.PLANE_COUNT - 1) {
+            return 0;
+        }
+
+        int planeIndex = index * FlagMap.PLANE_COUNT + z;
+        byte[] masks = movementMasks.get(planeIndex);
+
+        if (masks == null) {
+            // Most regions only use some of their planes, so deduplicating per plane lets them share the empty ones
+            masks = computeMovementMasks(index, z);
+            byte[] existing = distinctMovementMasks.putIfAbsent(ByteBuffer.wrap(masks), masks);
+            masks = existing == null ? masks : existing;
+            movementMasks.set(planeIndex, masks);
+        }
+
+        int regionMask = (1 << regionShift) - 1;
+        return masks[((y & regionMask) << regionShift) | (x & regionMask)] & 0xFF;
+    }
+
+    /**
+     * Loads every region within {@code radius} tiles of the given tile on {@code executor}, so that a search starting
+     * there does not have to wait for them.
+     */
+    public void warmUp(int x, int y, int radius, Executor executor) {
+        for (int regionY = (y - radius) >> regionShift; regionY <= (y + radius) >> regionShift; regionY++) {
+            for (int regionX = (x - radius) >> regionShift; regionX <= (x + radius) >> regionShift; regionX++) {
+                int minX = regionX << regionShift;
+                int minY = regionY << regionShift;
+                int index = regionIndex(minX, minY);
+
+                if (index >= 0 && movementMasks.get(index * FlagMap.PLANE_COUNT) == null) {
+                    executor.execute(() -> {
+                        for (int z = 0; z < FlagMap.PLANE_COUNT; z++) {
+                            movementMask(minX, minY, z);
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private byte[] computeMovementMasks(int index, int z) {
+        int regionSize = 1 << regionShift;
+        int minX = (index % widthInRegions) << regionShift;
+        int minY = (index / widthInRegions) << regionShift;
+        byte[] masks = new byte[regionSize * regionSize];
+
+        int i = 0;
+        for (int y = minY; y < minY + regionSize; y++) {
+            for (int x = minX; x < minX + regionSize; x++) {
+                masks[i++] = (byte) ((w(x, y, z) ? WEST : 0) |
+                        (e(x, y, z) ? EAST : 0) |
+                        (s(x, y, z) ? SOUTH : 0) |
+                        (n(x, y, z) ? NORTH : 0) |
+                        (sw(x, y, z) ? SOUTH_WEST : 0) |
+                        (se(x, y, z) ? SOUTH_EAST : 0) |
+                        (nw(x, y, z) ? NORTH_WEST : 0) |
+                        (ne(x, y, z) ? NORTH_EAST : 0));
+            }
+        }
+
+        return masks;
+    }
 }
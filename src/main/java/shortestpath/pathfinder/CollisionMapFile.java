@@ -0,0 +1,197 @@
+package shortestpath.pathfinder;
+
+import shortestpath.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Uncompressed collision map laid out for memory mapping: a header, a table holding the word offset of every region
+ * (or -1 when it has no flags set), and the raw flag words of each distinct region.
+ */
+public class CollisionMapFile implements RegionSource {
+    private static final int MAGIC = 0x53504D43;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 7 * Integer.BYTES;
+    private final int regionSize;
+    private final int widthInRegions;
+    private final int heightInRegions;
+    private final int flagCount;
+    private final int wordsPerRegion;
+    private final IntBuffer offsets;
+    private final LongBuffer words;
+
+    private CollisionMapFile(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a collision map file");
+        }
+
+        regionSize = buffer.getInt();
+        widthInRegions = buffer.getInt();
+        heightInRegions = buffer.getInt();
+        flagCount = buffer.getInt();
+        wordsPerRegion = buffer.getInt();
+
+        if (regionSize <= 0 || (regionSize & (regionSize - 1)) != 0) {
+            throw new IOException("Collision map file has a region size of " + regionSize);
+        } else if (flagCount != CollisionMap.FLAG_COUNT) {
+            throw new IOException("Collision map file has " + flagCount + " flags, not " + CollisionMap.FLAG_COUNT);
+        } else if (wordsPerRegion != wordsPerRegion(regionSize, flagCount)) {
+            throw new IOException("Collision map file has " + wordsPerRegion + " words per region, not " +
+                    wordsPerRegion(regionSize, flagCount));
+        }
+
+        // A file cut short or damaged has to fail like an unreadable one, so that it gets rebuilt
+        long regionCount = (long) widthInRegions * heightInRegions;
+        if (widthInRegions < 0 || heightInRegions < 0 || dataStart(regionCount) > buffer.limit()) {
+            throw new IOException("Collision map file is too short for its offset table");
+        }
+
+        offsets = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        offsets.limit((int) regionCount);
+        buffer.position((int) dataStart(regionCount));
+        words = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+
+        long wordCount = 0;
+        for (int i = 0; i < offsets.limit(); i++) {
+            int offset = offsets.get(i);
+
+            if (offset < -1) {
+                throw new IOException("Collision map file has a negative region offset");
+            } else if (offset >= 0) {
+                wordCount = Math.max(wordCount, (long) offset + wordsPerRegion);
+            }
+        }
+
+        if (wordCount > words.limit()) {
+            throw new IOException("Collision map file is too short for its regions");
+        }
+    }
+
+    public static CollisionMapFile open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new CollisionMapFile(buffer);
+        }
+    }
+
+    public static void write(File file, RegionSource source, int flagCount) throws IOException {
+        write(file, source, flagCount, Runnable::run);
+    }
+
+    public static void write(File file, RegionSource source, int flagCount, Executor executor) throws IOException {
+        int widthInRegions = source.getWidthInRegions();
+        int heightInRegions = source.getHeightInRegions();
+        int regionCount = widthInRegions * heightInRegions;
+        FlagMap[] regions = new FlagMap[regionCount];
+        Util.forEachIndex(regionCount, i -> regions[i] = source.load(i % widthInRegions, i / widthInRegions, flagCount), executor);
+
+        // Regions with no flags set are stored as missing, and regions with identical flags share one block
+        int[] offsets = new int[regionCount];
+        Map<LongBuffer, Integer> blockOffsets = new HashMap<>();
+        List<LongBuffer> blocks = new ArrayList<>();
+        int wordsPerRegion = (int) wordsPerRegion(source.getRegionSize(), flagCount);
+
+        for (int i = 0; i < regionCount; i++) {
+            FlagMap region = regions[i];
+
+            if (region == null || region.isEmpty()) {
+                offsets[i] = -1;
+                continue;
+            }
+
+            LongBuffer block = region.flags.duplicate();
+            Integer offset = blockOffsets.get(block);
+
+            if (offset == null) {
+                offset = blocks.size() * wordsPerRegion;
+                blockOffsets.put(block, offset);
+                blocks.add(block);
+            }
+
+            offsets[i] = offset;
+        }
+
+        int dataStart = (int) dataStart(regionCount);
+        ByteBuffer buffer = ByteBuffer.allocate(dataStart + blocks.size() * wordsPerRegion * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(source.getRegionSize());
+        buffer.putInt(widthInRegions);
+        buffer.putInt(heightInRegions);
+        buffer.putInt(flagCount);
+        buffer.putInt(wordsPerRegion);
+
+        for (int offset : offsets) {
+            buffer.putInt(offset);
+        }
+
+        buffer.position(dataStart);
+        for (LongBuffer block : blocks) {
+            for (int i = 0; i < wordsPerRegion; i++) {
+                buffer.putLong(block.get(i));
+            }
+        }
+
+        Util.writeAtomically(file, buffer.array());
+    }
+
+    @Override
+    public int getRegionSize() {
+        return regionSize;
+    }
+
+    @Override
+    public int getWidthInRegions() {
+        return widthInRegions;
+    }
+
+    @Override
+    public int getHeightInRegions() {
+        return heightInRegions;
+    }
+
+    @Override
+    public FlagMap load(int regionX, int regionY, int flagCount) {
+        if (flagCount != this.flagCount) {
+            throw new IllegalArgumentException("Collision map file has " + this.flagCount + " flags, not " + flagCount);
+        }
+
+        int offset = offsets.get(regionY * widthInRegions + regionX);
+
+        if (offset < 0) {
+            return null;
+        }
+
+        LongBuffer region = words.duplicate();
+        region.position(offset);
+        region.limit(offset + wordsPerRegion);
+
+        int minX = regionX * regionSize;
+        int minY = regionY * regionSize;
+        return new FlagMap(minX, minY, minX + regionSize - 1, minY + regionSize - 1, flagCount, region.slice());
+    }
+
+    private static long wordsPerRegion(long regionSize, int flagCount) {
+        return (regionSize * regionSize * FlagMap.PLANE_COUNT * flagCount + 63) >>> 6;
+    }
+
+    private static long dataStart(long regionCount) {
+        long end = HEADER_SIZE + regionCount * Integer.BYTES;
+        return (end + Long.BYTES - 1) & -Long.BYTES;
+    }
+}
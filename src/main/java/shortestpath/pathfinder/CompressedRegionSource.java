@@ -0,0 +1,107 @@
+package shortestpath.pathfinder;
+
+import shortestpath.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.LongBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class CompressedRegionSource implements RegionSource {
+    private final int regionSize;
+    private final int widthInRegions;
+    private final int heightInRegions;
+    private final byte[][] compressedRegions;
+    private final Map<LongBuffer, LongBuffer> distinctFlags = new ConcurrentHashMap<>();
+
+    public CompressedRegionSource(int regionSize, Map<SplitFlagMap.Position, byte[]> compressedRegions) {
+        this.regionSize = regionSize;
+
+        int maxX = 0;
+        int maxY = 0;
+        for (SplitFlagMap.Position position : compressedRegions.keySet()) {
+            maxX = Math.max(maxX, position.x);
+            maxY = Math.max(maxY, position.y);
+        }
+
+        widthInRegions = maxX + 1;
+        heightInRegions = maxY + 1;
+        this.compressedRegions = new byte[widthInRegions * heightInRegions][];
+
+        for (Map.Entry<SplitFlagMap.Position, byte[]> entry : compressedRegions.entrySet()) {
+            if (entry.getKey().x >= 0 && entry.getKey().y >= 0) {
+                this.compressedRegions[entry.getKey().y * widthInRegions + entry.getKey().x] = entry.getValue();
+            }
+        }
+    }
+
+    public static Map<SplitFlagMap.Position, byte[]> readZip(InputStream zip) throws IOException {
+        Map<SplitFlagMap.Position, byte[]> compressedRegions = new HashMap<>();
+
+        try (ZipInputStream in = new ZipInputStream(zip)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                String[] n = entry.getName().split("_");
+
+                compressedRegions.put(
+                        new SplitFlagMap.Position(Integer.parseInt(n[0]), Integer.parseInt(n[1])),
+                        Util.readAllBytes(in)
+                );
+            }
+        }
+
+        return compressedRegions;
+    }
+
+    @Override
+    public int getRegionSize() {
+        return regionSize;
+    }
+
+    @Override
+    public int getWidthInRegions() {
+        return widthInRegions;
+    }
+
+    @Override
+    public int getHeightInRegions() {
+        return heightInRegions;
+    }
+
+    @Override
+    public FlagMap load(int regionX, int regionY, int flagCount) {
+        byte[] compressedRegion = compressedRegions[regionY * widthInRegions + regionX];
+
+        if (compressedRegion == null) {
+            return null;
+        }
+
+        FlagMap region;
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressedRegion))) {
+            region = new FlagMap(Util.readAllBytes(in), flagCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (region.isEmpty()) {
+            return null;
+        }
+
+        // Much of the map is ocean or void, so most of those regions can share the flags of the first one decoded
+        LongBuffer flags = distinctFlags.putIfAbsent(region.flags, region.flags.asReadOnlyBuffer());
+
+        if (flags == null) {
+            return region;
+        }
+
+        return new FlagMap(region.minX, region.minY, region.maxX, region.maxY, flagCount, flags);
+    }
+}
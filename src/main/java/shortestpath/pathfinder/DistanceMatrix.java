@@ -0,0 +1,247 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Travel costs between every pair of a list of points, as used to order the stops of a trip. Costs count a tile per
+ * step and the duration of each transport, like {@link Pathfinder}.
+ */
+public class DistanceMatrix {
+    public static final int UNREACHABLE = -1;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private final int size;
+    // Row-major, the cost from point i to point j at i * size + j
+    private final int[] costs;
+
+    private DistanceMatrix(int size, int[] costs) {
+        this.size = size;
+        this.costs = costs;
+    }
+
+    /**
+     * Computes a single matrix, see {@link Calculator} to compute several with the same search buffers.
+     */
+    public static DistanceMatrix compute(CollisionMap map, TransportGraph transports, List<WorldPoint> points,
+                                         boolean avoidWilderness, ForkJoinPool pool) {
+        return new Calculator(map, transports, pool).compute(points, avoidWilderness);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the cost of travelling from point {@code from} to point {@code to}, or {@link #UNREACHABLE}
+     */
+    public int getCost(int from, int to) {
+        return costs[from * size + to];
+    }
+
+    /**
+     * Computes matrices on a pool over the same {@code map} and {@code transports}, which are shared by every search
+     * since none of them change either. Each worker of the pool keeps its search buffers from one matrix to the next,
+     * until the calculator is dropped.
+     */
+    public static class Calculator {
+        private final CollisionMap map;
+        private final TransportGraph transports;
+        private final ForkJoinPool pool;
+        // By the pool index of the worker using them, which only ever runs one search at a time
+        private final AtomicReferenceArray<Search> searches;
+
+        public Calculator(CollisionMap map, TransportGraph transports, ForkJoinPool pool) {
+            this.map = map;
+            this.transports = transports;
+            this.pool = pool;
+            searches = new AtomicReferenceArray<>(pool.getParallelism());
+        }
+
+        /**
+         * Runs one search from each point, which stops once it has reached every point or run out of tiles. Avoiding the
+         * wilderness still lets a search step onto the points that are in it, like a path to a target there.
+         */
+        public DistanceMatrix compute(List<WorldPoint> points, boolean avoidWilderness) {
+            int[] packed = new int[points.size()];
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] = WorldPointUtil.pack(points.get(i));
+            }
+
+            // The distinct points in order, so that each is only counted once when reached
+            int[] targets = Arrays.stream(packed).distinct().sorted().toArray();
+            int[] costs = new int[packed.length * packed.length];
+            pool.invoke(new SourceTask(this, packed, targets, avoidWilderness, costs, 0, packed.length));
+            return new DistanceMatrix(packed.length, costs);
+        }
+
+        private Search search() {
+            Thread thread = Thread.currentThread();
+
+            if (!(thread instanceof ForkJoinWorkerThread) || ((ForkJoinWorkerThread) thread).getPool() != pool) {
+                return new Search(map, transports);
+            }
+
+            // Threads the pool adds while others are blocked can have an index past its parallelism
+            int index = ((ForkJoinWorkerThread) thread).getPoolIndex();
+            if (index >= searches.length()) {
+                return new Search(map, transports);
+            }
+
+            Search search = searches.get(index);
+            if (search == null) {
+                search = new Search(map, transports);
+                searches.set(index, search);
+            }
+
+            return search;
+        }
+    }
+
+    /**
+     * Splits the sources in half until each task has a single one, so that idle workers can steal the rest.
+     */
+    private static class SourceTask extends RecursiveAction {
+        private final Calculator calculator;
+        private final int[] points;
+        private final int[] targets;
+        private final boolean avoidWilderness;
+        private final int[] costs;
+        private final int from;
+        private final int to;
+
+        SourceTask(Calculator calculator, int[] points, int[] targets, boolean avoidWilderness, int[] costs, int from, int to) {
+            this.calculator = calculator;
+            this.points = points;
+            this.targets = targets;
+            this.avoidWilderness = avoidWilderness;
+            this.costs = costs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SourceTask(calculator, points, targets, avoidWilderness, costs, from, middle),
+                        new SourceTask(calculator, points, targets, avoidWilderness, costs, middle, to));
+            } else if (to > from) {
+                calculator.search().search(points, targets, avoidWilderness, from, costs);
+            }
+        }
+    }
+
+    /**
+     * Breadth-first search from one point, or Dijkstra's algorithm when transports take longer than a step.
+     */
+    private static class Search {
+        private final CollisionMap map;
+        private final TransportGraph transports;
+        private final boolean useHeap;
+        private final NodeMap visited = new NodeMap(INITIAL_CAPACITY);
+        private final IntQueue queue;
+        private final IntMinHeap heap;
+        // Of the search in progress
+        private int[] targets;
+        private boolean avoidWilderness;
+
+        Search(CollisionMap map, TransportGraph transports) {
+            this.map = map;
+            this.transports = transports;
+            useHeap = transports.isWeighted();
+            queue = useHeap ? null : new IntQueue(INITIAL_CAPACITY);
+            heap = useHeap ? new IntMinHeap(INITIAL_CAPACITY) : null;
+        }
+
+        /**
+         * Writes the cost from point {@code source} to every point into its row of {@code costs}.
+         *
+         * @param targets the distinct {@code points} in order
+         */
+        void search(int[] points, int[] targets, boolean avoidWilderness, int source, int[] costs) {
+            this.targets = targets;
+            this.avoidWilderness = avoidWilderness;
+            visited.clear();
+            int start = points[source];
+            int offset = source * points.length;
+            int remaining = targets.length;
+
+            visited.put(start, WorldPointUtil.UNDEFINED, 0);
+            push(start, 0);
+
+            while (remaining > 0 && (useHeap ? !heap.isEmpty() : !queue.isEmpty())) {
+                int node = useHeap ? heap.poll() : queue.poll();
+
+                if (useHeap) {
+                    if (visited.isClosed(node)) {
+                        continue;
+                    }
+
+                    visited.close(node);
+                }
+
+                if (Arrays.binarySearch(targets, node) >= 0) {
+                    remaining--;
+                }
+
+                addNeighbors(node);
+            }
+
+            // What is left was only reached on the way, so its cost may not be the lowest yet
+            if (useHeap) {
+                heap.clear();
+            } else {
+                queue.clear();
+            }
+
+            for (int i = 0; i < points.length; i++) {
+                boolean reached = useHeap ? visited.isClosed(points[i]) : visited.contains(points[i]);
+                costs[offset + i] = reached ? visited.getCost(points[i]) : UNREACHABLE;
+            }
+        }
+
+        private void addNeighbors(int node) {
+            int x = WorldPointUtil.getX(node);
+            int y = WorldPointUtil.getY(node);
+            int z = WorldPointUtil.getPlane(node);
+            int cost = visited.getCost(node);
+            int movement = map.movementMask(x, y, z);
+
+            for (int direction = 0; direction < CollisionMap.DIRECTION_COUNT; direction++) {
+                if ((movement & (1 << direction)) != 0) {
+                    addNeighbor(node, WorldPointUtil.pack(x + CollisionMap.DX[direction], y + CollisionMap.DY[direction], z), cost + 1);
+                }
+            }
+
+            int[] destinations = transports.getDestinations(node);
+            int[] durations = transports.getDurations(node);
+            for (int i = 0; i < destinations.length; i++) {
+                addNeighbor(node, destinations[i], cost + durations[i]);
+            }
+        }
+
+        private void addNeighbor(int node, int neighbor, int cost) {
+            if (avoidWilderness && Wilderness.contains(neighbor) && Arrays.binarySearch(targets, neighbor) < 0) {
+                return;
+            }
+
+            if (visited.put(neighbor, node, cost)) {
+                push(neighbor, cost);
+            }
+        }
+
+        private void push(int node, int cost) {
+            if (useHeap) {
+                heap.add(node, cost);
+            } else {
+                queue.add(node);
+            }
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package shortestpath.pathfinder;
 
 import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
 import java.util.BitSet;
 
 public class FlagMap {
     public static final int PLANE_COUNT = 4;
-    protected final BitSet flags;
+    protected final LongBuffer flags;
     public final int minX;
     public final int minY;
     public final int maxX;
@@ -22,7 +24,23 @@ public class FlagMap {
         this.flagCount = flagCount;
         width = (maxX - minX + 1);
         height = (maxY - minY + 1);
-        flags = new BitSet(width * height * PLANE_COUNT * flagCount);
+        flags = LongBuffer.allocate(wordCount());
+    }
+
+    public FlagMap(int minX, int minY, int maxX, int maxY, int flagCount, LongBuffer flags) {
+        this.minX = minX;
+        this.minY = minY;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.flagCount = flagCount;
+        width = (maxX - minX + 1);
+        height = (maxY - minY + 1);
+
+        if (flags.remaining() < wordCount()) {
+            throw new IllegalArgumentException("Expected " + wordCount() + " words but got " + flags.remaining());
+        }
+
+        this.flags = flags;
     }
 
     public FlagMap(byte[] bytes, int flagCount) {
@@ -34,30 +52,49 @@ public class FlagMap {
         this.flagCount = flagCount;
         width = (maxX - minX + 1);
         height = (maxY - minY + 1);
-        flags = BitSet.valueOf(buffer);
+        flags = LongBuffer.wrap(Arrays.copyOf(BitSet.valueOf(buffer).toLongArray(), wordCount()));
     }
 
     public byte[] toBytes() {
-        byte[] bytes = new byte[16 + flags.size()];
+        byte[] bitBytes = BitSet.valueOf(flags.duplicate()).toByteArray();
+        byte[] bytes = new byte[16 + bitBytes.length];
         ByteBuffer buffer = ByteBuffer.wrap(bytes);
         buffer.putInt(minX);
         buffer.putInt(minY);
         buffer.putInt(maxX);
         buffer.putInt(maxY);
-        buffer.put(flags.toByteArray());
+        buffer.put(bitBytes);
         return bytes;
     }
 
+    public boolean isEmpty() {
+        for (int i = 0; i < flags.limit(); i++) {
+            if (flags.get(i) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     public boolean get(int x, int y, int z, int flag) {
         if (x < minX || x > maxX || y < minY || y > maxY || z < 0 || z > PLANE_COUNT - 1) {
             return false;
         }
 
-        return flags.get(index(x, y, z, flag));
+        int index = index(x, y, z, flag);
+        return (flags.get(index >>> 6) & (1L << index)) != 0;
     }
 
     public void set(int x, int y, int z, int flag, boolean value) {
-        flags.set(index(x, y, z, flag), value);
+        int index = index(x, y, z, flag);
+
+        long word = flags.get(index >>> 6);
+        flags.put(index >>> 6, value ? word | (1L << index) : word & ~(1L << index));
+    }
+
+    public int wordCount() {
+        return (width * height * PLANE_COUNT * flagCount + 63) >>> 6;
     }
 
     private int index(int x, int y, int z, int flag) {
@@ -0,0 +1,102 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * The tiles a search may end on, which is either any of a set of tiles or any tile within some distance of one. The
+ * search finishes on whichever of them it reaches first.
+ */
+public class Goal {
+    private static final int NO_RADIUS = -1;
+    // Sorted, so that membership is a binary search
+    private final int[] tiles;
+    private final int radius;
+
+    private Goal(int[] tiles, int radius) {
+        this.tiles = tiles;
+        this.radius = radius;
+    }
+
+    public static Goal of(WorldPoint target) {
+        return new Goal(new int[]{WorldPointUtil.pack(target)}, NO_RADIUS);
+    }
+
+    /**
+     * The heuristic looks at every tile, so this is meant for a handful of them, like the banks in an area.
+     */
+    public static Goal anyOf(Collection<WorldPoint> targets) {
+        if (targets.isEmpty()) {
+            throw new IllegalArgumentException("A goal needs at least one tile");
+        }
+
+        int[] tiles = targets.stream().mapToInt(WorldPointUtil::pack).distinct().sorted().toArray();
+        return new Goal(tiles, NO_RADIUS);
+    }
+
+    /**
+     * @return a goal of every tile on the plane of {@code center} that is no more than {@code radius} tiles from it
+     */
+    public static Goal within(WorldPoint center, int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius must not be negative: " + radius);
+        }
+
+        return new Goal(new int[]{WorldPointUtil.pack(center)}, radius);
+    }
+
+    /**
+     * @return the only tile of the goal, or {@link WorldPointUtil#UNDEFINED} if there is more than one
+     */
+    public int getTile() {
+        return tiles.length == 1 && radius <= 0 ? tiles[0] : WorldPointUtil.UNDEFINED;
+    }
+
+    public boolean contains(int node) {
+        if (radius == NO_RADIUS) {
+            return Arrays.binarySearch(tiles, node) >= 0;
+        }
+
+        return WorldPointUtil.getPlane(node) == WorldPointUtil.getPlane(tiles[0]) && WorldPointUtil.distance(node, tiles[0]) <= radius;
+    }
+
+    /**
+     * @return the distance from {@code node} to the closest tile of the goal, ignoring planes like
+     * {@link WorldPointUtil#distance}
+     */
+    public int distance(int node) {
+        if (radius != NO_RADIUS) {
+            return Math.max(0, WorldPointUtil.distance(node, tiles[0]) - radius);
+        }
+
+        int distance = Integer.MAX_VALUE;
+        for (int tile : tiles) {
+            distance = Math.min(distance, WorldPointUtil.distance(node, tile));
+        }
+
+        return distance;
+    }
+
+    /**
+     * @return the distance from {@code node} to the closest tile of the goal on the same plane, or
+     * {@link Integer#MAX_VALUE} if there is none
+     */
+    public int walkingDistance(int node) {
+        int plane = WorldPointUtil.getPlane(node);
+
+        if (radius != NO_RADIUS) {
+            return plane == WorldPointUtil.getPlane(tiles[0]) ? distance(node) : Integer.MAX_VALUE;
+        }
+
+        int distance = Integer.MAX_VALUE;
+        for (int tile : tiles) {
+            if (WorldPointUtil.getPlane(tile) == plane) {
+                distance = Math.min(distance, WorldPointUtil.distance(node, tile));
+            }
+        }
+
+        return distance;
+    }
+}
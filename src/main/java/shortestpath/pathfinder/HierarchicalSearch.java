@@ -0,0 +1,166 @@
+package shortestpath.pathfinder;
+
+/**
+ * Searches the {@link RegionGraph} between two tiles and then refines each abstract edge into tiles, one region at a
+ * time.
+ */
+class HierarchicalSearch {
+    private final CollisionMap map;
+    private final RegionGraph graph;
+    private final TransportGraph transports;
+    private final RegionSearch regionSearch;
+    private final boolean avoidWilderness;
+    private final int startNode;
+    private final int targetNode;
+
+    /**
+     * @param transports the transports the player can use, which may be fewer than the graph was built with
+     */
+    HierarchicalSearch(CollisionMap map, RegionGraph graph, TransportGraph transports, boolean avoidWilderness) {
+        this.map = map;
+        this.graph = graph;
+        this.transports = transports;
+        this.avoidWilderness = avoidWilderness;
+        regionSearch = new RegionSearch(map);
+        startNode = graph.getNodeCount();
+        targetNode = graph.getNodeCount() + 1;
+    }
+
+    /**
+     * @return the tiles from {@code start} to {@code target}, or null if the abstract graph has no route between them
+     */
+    IntList find(int start, int target) {
+        regionSearch.search(start, avoidWilderness);
+        NodeMap startEdges = regionEdges(start);
+        int directCost = regionSearch.distance(target);
+
+        regionSearch.search(target, avoidWilderness);
+        NodeMap targetEdges = regionEdges(target);
+
+        NodeMap visited = new NodeMap(1 << 12);
+        IntMinHeap boundary = new IntMinHeap(1 << 12);
+        visited.put(startNode, WorldPointUtil.UNDEFINED, 0);
+        boundary.add(startNode, 0);
+
+        while (!boundary.isEmpty()) {
+            int node = boundary.poll();
+
+            if (visited.isClosed(node)) {
+                continue;
+            }
+
+            visited.close(node);
+
+            if (node == targetNode) {
+                return refine(visited, start, target);
+            }
+
+            int cost = visited.getCost(node);
+
+            if (node == startNode) {
+                for (int regionNode : graph.getRegionNodes(start)) {
+                    if (startEdges.contains(regionNode)) {
+                        relax(visited, boundary, node, regionNode, cost + startEdges.getCost(regionNode), false, target);
+                    }
+                }
+
+                if (directCost >= 0) {
+                    relax(visited, boundary, node, targetNode, cost + directCost, false, target);
+                }
+
+                continue;
+            }
+
+            for (int edge = graph.getEdgeStart(node); edge < graph.getEdgeEnd(node); edge++) {
+                int neighbor = graph.getEdgeTarget(edge);
+
+                if (avoidWilderness && (Wilderness.contains(graph.getNode(neighbor)) || graph.crossesWilderness(edge)) ||
+                        graph.isDirectEdge(edge) && !isUsable(graph.getNode(node), graph.getNode(neighbor))) {
+                    continue;
+                }
+
+                relax(visited, boundary, node, neighbor, cost + graph.getEdgeCost(edge), graph.isDirectEdge(edge), target);
+            }
+
+            if (targetEdges.contains(node)) {
+                relax(visited, boundary, node, targetNode, cost + targetEdges.getCost(node), false, target);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return whether a direct edge is a step across a region border or a transport the player can use
+     */
+    private boolean isUsable(int from, int to) {
+        if (WorldPointUtil.getPlane(from) == WorldPointUtil.getPlane(to) && WorldPointUtil.distance(from, to) == 1) {
+            int movement = map.movementMask(WorldPointUtil.getX(from), WorldPointUtil.getY(from), WorldPointUtil.getPlane(from));
+
+            for (int direction = 0; direction < CollisionMap.DIRECTION_COUNT; direction++) {
+                if ((movement & (1 << direction)) != 0 &&
+                        WorldPointUtil.getX(from) + CollisionMap.DX[direction] == WorldPointUtil.getX(to) &&
+                        WorldPointUtil.getY(from) + CollisionMap.DY[direction] == WorldPointUtil.getY(to)) {
+                    return true;
+                }
+            }
+        }
+
+        return transports.hasTransport(from, to);
+    }
+
+    private NodeMap regionEdges(int point) {
+        int[] regionNodes = graph.getRegionNodes(point);
+        NodeMap edges = new NodeMap(regionNodes.length);
+
+        for (int regionNode : regionNodes) {
+            int distance = regionSearch.distance(graph.getNode(regionNode));
+
+            if (distance >= 0) {
+                edges.put(regionNode, WorldPointUtil.UNDEFINED, distance);
+            }
+        }
+
+        return edges;
+    }
+
+    private void relax(NodeMap visited, IntMinHeap boundary, int node, int neighbor, int cost, boolean direct, int target) {
+        // The parent keeps whether the edge is direct in its lowest bit, so refinement knows which edges need walking
+        if (visited.put(neighbor, node << 1 | (direct ? 1 : 0), cost)) {
+            int point = neighbor == targetNode ? target : graph.getNode(neighbor);
+            boundary.add(neighbor, ((long) (cost + WorldPointUtil.distance(point, target)) << 32) | (Integer.MAX_VALUE - cost));
+        }
+    }
+
+    private IntList refine(NodeMap visited, int start, int target) {
+        IntList route = new IntList(64);
+        for (int node = targetNode; node != startNode; node = visited.getParent(node) >> 1) {
+            route.add(node);
+        }
+
+        route.reverse(0, route.size());
+
+        IntList path = new IntList(1024);
+        path.add(start);
+        int current = start;
+
+        for (int i = 0; i < route.size(); i++) {
+            int next = route.get(i);
+            int point = next == targetNode ? target : graph.getNode(next);
+
+            if ((visited.getParent(next) & 1) != 0) {
+                path.add(point);
+            } else {
+                regionSearch.search(current, avoidWilderness);
+
+                if (!regionSearch.appendPath(point, path)) {
+                    return null;
+                }
+            }
+
+            current = point;
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,176 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Searches backwards from the target and keeps the search tree between calls, so finding the path again after the
+ * player has moved only extends the tree until it reaches the new start. Since the map doesn't change, this is D* Lite
+ * without edge updates: when the start moves, the heuristic of everything on the heap shifts by at most the distance
+ * moved, which is added to later keys instead of reordering the heap, and stale entries are pushed back as they come up.
+ */
+public class IncrementalPathfinder {
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    private final CollisionMap map;
+    private final TransportGraph transports;
+    private final TransportGraph reversedTransports;
+    private final int target;
+    private final boolean avoidWilderness;
+    private final boolean useHeuristic;
+    private final IntMinHeap heap = new IntMinHeap(INITIAL_CAPACITY);
+    // Parents point towards the target, and costs are distances to it
+    private final NodeMap tree = new NodeMap(INITIAL_CAPACITY);
+    private int start = WorldPointUtil.UNDEFINED;
+    private int keyModifier;
+    private int expanded;
+    private int frontierPeak;
+    private long findNanos;
+
+    /**
+     * @param useHeuristic whether to guide the search towards the start, which finds the shortest path only when no
+     *                     transports are involved
+     */
+    public IncrementalPathfinder(CollisionMap map, TransportGraph transports, WorldPoint target, boolean avoidWilderness, boolean useHeuristic) {
+        this.map = map;
+        this.transports = transports;
+        this.reversedTransports = transports.reversed();
+        this.target = WorldPointUtil.pack(target);
+        this.avoidWilderness = avoidWilderness;
+        this.useHeuristic = useHeuristic;
+        tree.put(this.target, WorldPointUtil.UNDEFINED, 0);
+        // The key of cost 0 without an estimate, as there is no start yet; the first search pushes it back with its own
+        heap.add(this.target, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return whether this search tree answers searches with the given parameters
+     */
+    public boolean isFor(CollisionMap map, TransportGraph transports, WorldPoint target, boolean avoidWilderness, boolean useHeuristic) {
+        return this.map == map && this.transports == transports && this.target == WorldPointUtil.pack(target) &&
+                this.avoidWilderness == avoidWilderness && this.useHeuristic == useHeuristic;
+    }
+
+    /**
+     * @return the path from {@code start} to the target, or null if the target can't be reached from there or the
+     * search was cancelled, in which case it can be resumed by a later call
+     */
+    public List<WorldPoint> find(WorldPoint start, BooleanSupplier cancelled) {
+        long startTime = System.nanoTime();
+        List<WorldPoint> path = search(start, cancelled);
+        findNanos = System.nanoTime() - startTime;
+        return path;
+    }
+
+    /**
+     * @return the work done on the tree over all searches so far, with the time taken by the last {@link #find}
+     */
+    public SearchStats getStats() {
+        return new SearchStats(expanded, frontierPeak, tree.size(), findNanos);
+    }
+
+    private List<WorldPoint> search(WorldPoint start, BooleanSupplier cancelled) {
+        int packedStart = WorldPointUtil.pack(start);
+
+        // The tree never enters the wilderness, so it would only be expanded in full to find that out
+        if (avoidWilderness && Wilderness.contains(packedStart)) {
+            return null;
+        }
+
+        if (useHeuristic && this.start != WorldPointUtil.UNDEFINED) {
+            keyModifier += WorldPointUtil.distance(this.start, packedStart);
+        }
+
+        this.start = packedStart;
+
+        if (!expand(packedStart, cancelled)) {
+            return null;
+        }
+
+        List<WorldPoint> path = new ArrayList<>(tree.getCost(packedStart) + 1);
+        for (int n = packedStart; n != WorldPointUtil.UNDEFINED; n = tree.getParent(n)) {
+            path.add(WorldPointUtil.unpack(n));
+        }
+
+        return path;
+    }
+
+    /**
+     * Expands the search tree until it holds every tile the target can be reached from, after which {@link #find} only
+     * has to follow parents.
+     *
+     * @return whether the tree is complete, rather than the search cancelled
+     */
+    public boolean complete(BooleanSupplier cancelled) {
+        return expand(WorldPointUtil.UNDEFINED, cancelled);
+    }
+
+    private boolean expand(int until, BooleanSupplier cancelled) {
+        while (until == WorldPointUtil.UNDEFINED || !tree.isClosed(until)) {
+            if (heap.isEmpty()) {
+                return until == WorldPointUtil.UNDEFINED;
+            } else if (cancelled.getAsBoolean()) {
+                return false;
+            }
+
+            long priority = heap.peekPriority();
+            int node = heap.poll();
+
+            if (tree.isClosed(node)) {
+                continue;
+            }
+
+            long key = key(node, tree.getCost(node));
+            if (key > priority) {
+                heap.add(node, key);
+                continue;
+            }
+
+            tree.close(node);
+            expanded++;
+            addPredecessors(node);
+        }
+
+        return true;
+    }
+
+    private void addPredecessors(int node) {
+        int x = WorldPointUtil.getX(node);
+        int y = WorldPointUtil.getY(node);
+        int z = WorldPointUtil.getPlane(node);
+        int cost = tree.getCost(node);
+
+        // Walking is symmetric, so the tiles that can step here are the ones this tile can step to
+        int movement = map.movementMask(x, y, z);
+        for (int direction = 0; direction < CollisionMap.DIRECTION_COUNT; direction++) {
+            if ((movement & (1 << direction)) != 0) {
+                addPredecessor(node, WorldPointUtil.pack(x + CollisionMap.DX[direction], y + CollisionMap.DY[direction], z), cost + 1);
+            }
+        }
+
+        int[] origins = reversedTransports.getDestinations(node);
+        int[] durations = reversedTransports.getDurations(node);
+        for (int i = 0; i < origins.length; i++) {
+            addPredecessor(node, origins[i], cost + durations[i]);
+        }
+    }
+
+    private void addPredecessor(int node, int predecessor, int cost) {
+        if (avoidWilderness && Wilderness.contains(predecessor)) {
+            return;
+        }
+
+        if (tree.put(predecessor, node, cost)) {
+            heap.add(predecessor, key(predecessor, cost));
+            frontierPeak = Math.max(frontierPeak, heap.size());
+        }
+    }
+
+    private long key(int node, int cost) {
+        int estimate = useHeuristic ? cost + WorldPointUtil.distance(node, start) + keyModifier : cost;
+        // Like the forward search, ties go to the node furthest along, which here is the one furthest from the target
+        return ((long) estimate << 32) | (Integer.MAX_VALUE - cost);
+    }
+}
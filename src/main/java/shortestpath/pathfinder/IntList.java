@@ -0,0 +1,58 @@
+package shortestpath.pathfinder;
+
+import java.util.Arrays;
+
+public class IntList {
+    private int[] elements;
+    private int size;
+
+    public IntList(int capacity) {
+        elements = new int[Math.max(4, capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index + " >= " + size);
+        }
+
+        return elements[index];
+    }
+
+    public void add(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+
+        elements[size++] = value;
+    }
+
+    public boolean contains(int value) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == value) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public void reverse(int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            int t = elements[i];
+            elements[i] = elements[j];
+            elements[j] = t;
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+}
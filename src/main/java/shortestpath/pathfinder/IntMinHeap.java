@@ -0,0 +1,83 @@
+package shortestpath.pathfinder;
+
+import java.util.Arrays;
+
+public class IntMinHeap {
+    private long[] priorities;
+    private int[] values;
+    private int size;
+
+    public IntMinHeap(int capacity) {
+        priorities = new long[Math.max(16, capacity)];
+        values = new int[priorities.length];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(int value, long priority) {
+        if (size == values.length) {
+            priorities = Arrays.copyOf(priorities, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (priorities[parent] <= priority) {
+                break;
+            }
+
+            priorities[i] = priorities[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+
+        priorities[i] = priority;
+        values[i] = value;
+    }
+
+    public long peekPriority() {
+        return priorities[0];
+    }
+
+    public int peek() {
+        return values[0];
+    }
+
+    public int poll() {
+        int result = values[0];
+        long priority = priorities[--size];
+        int value = values[size];
+
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && priorities[child + 1] < priorities[child]) {
+                child++;
+            }
+
+            if (priority <= priorities[child]) {
+                break;
+            }
+
+            priorities[i] = priorities[child];
+            values[i] = values[child];
+            i = child;
+        }
+
+        priorities[i] = priority;
+        values[i] = value;
+        return result;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
@@ -0,0 +1,49 @@
+package shortestpath.pathfinder;
+
+public class IntQueue {
+    private int[] elements;
+    private int head;
+    private int tail;
+
+    public IntQueue(int capacity) {
+        elements = new int[Integer.highestOneBit(Math.max(16, capacity) - 1) << 1];
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    public int size() {
+        return (tail - head) & (elements.length - 1);
+    }
+
+    public void add(int value) {
+        elements[tail] = value;
+        tail = (tail + 1) & (elements.length - 1);
+
+        if (tail == head) {
+            grow();
+        }
+    }
+
+    public int poll() {
+        int value = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        return value;
+    }
+
+    public void clear() {
+        head = 0;
+        tail = 0;
+    }
+
+    private void grow() {
+        int[] grown = new int[elements.length * 2];
+        int split = elements.length - head;
+        System.arraycopy(elements, head, grown, 0, split);
+        System.arraycopy(elements, 0, grown, split, head);
+        head = 0;
+        tail = elements.length;
+        elements = grown;
+    }
+}
@@ -0,0 +1,194 @@
+package shortestpath.pathfinder;
+
+/**
+ * Neighbour pruning and jumping for jump point search. Walls in the collision map sit on tile edges and diagonal steps
+ * cost the same as straight ones, so instead of the usual forced neighbour tables a neighbour is pruned whenever the
+ * tile the search came from reaches it at least as well without passing through the current tile. Equally long routes
+ * are ordered by fewer diagonal steps, then diagonal steps first, which on open ground gives the usual jump point rules.
+ */
+class JumpPoints {
+    // Used for tiles that were reached by a transport, or are where the search starts
+    static final int ANY_DIRECTION = -1;
+    private static final int[] DIRECTIONS = new int[9];
+    // For each direction a tile was entered in and each direction out of it: the single step from the previous tile
+    // that reaches the same neighbour, or BACKWARDS if that neighbour is the previous tile
+    private static final int BACKWARDS = -2;
+    private static final int[][] SHORTCUTS = new int[CollisionMap.DIRECTION_COUNT][CollisionMap.DIRECTION_COUNT];
+    // and the pairs of steps from the previous tile that reach it by a route ranked before the one through this tile
+    private static final int[][][] DETOURS = new int[CollisionMap.DIRECTION_COUNT][CollisionMap.DIRECTION_COUNT][];
+
+    static {
+        DIRECTIONS[4] = ANY_DIRECTION;
+        for (int direction = 0; direction < CollisionMap.DIRECTION_COUNT; direction++) {
+            DIRECTIONS[(CollisionMap.DY[direction] + 1) * 3 + CollisionMap.DX[direction] + 1] = direction;
+        }
+
+        for (int direction = 0; direction < CollisionMap.DIRECTION_COUNT; direction++) {
+            for (int next = 0; next < CollisionMap.DIRECTION_COUNT; next++) {
+                int dx = CollisionMap.DX[direction] + CollisionMap.DX[next];
+                int dy = CollisionMap.DY[direction] + CollisionMap.DY[next];
+                SHORTCUTS[direction][next] = dx == 0 && dy == 0 ? BACKWARDS : isStep(dx, dy) ? direction(dx, dy) : ANY_DIRECTION;
+
+                IntList detours = new IntList(8);
+                for (int first = 0; first < CollisionMap.DIRECTION_COUNT; first++) {
+                    int secondX = dx - CollisionMap.DX[first];
+                    int secondY = dy - CollisionMap.DY[first];
+
+                    if (first != direction && isStep(secondX, secondY) && rank(first, direction(secondX, secondY)) < rank(direction, next)) {
+                        detours.add(first);
+                        detours.add(direction(secondX, secondY));
+                    }
+                }
+
+                DETOURS[direction][next] = detours.toArray();
+            }
+        }
+    }
+
+    private final CollisionMap map;
+    private final TransportGraph transports;
+    private final Goal goal;
+    private final boolean avoidWilderness;
+
+    JumpPoints(CollisionMap map, TransportGraph transports, Goal goal, boolean avoidWilderness) {
+        this.map = map;
+        this.transports = transports;
+        this.goal = goal;
+        this.avoidWilderness = avoidWilderness;
+    }
+
+    /**
+     * @return the directions worth moving in from {@code node} when it was entered moving in {@code direction}
+     */
+    int successors(int node, int direction) {
+        int movement = movement(node);
+
+        if (direction == ANY_DIRECTION) {
+            return movement;
+        }
+
+        int parent = WorldPointUtil.pack(WorldPointUtil.getX(node) - CollisionMap.DX[direction], WorldPointUtil.getY(node) - CollisionMap.DY[direction], WorldPointUtil.getPlane(node));
+        return successors(node, direction, movement, movement(parent));
+    }
+
+    private int successors(int node, int direction, int movement, int parentMovement) {
+        int parentX = WorldPointUtil.getX(node) - CollisionMap.DX[direction];
+        int parentY = WorldPointUtil.getY(node) - CollisionMap.DY[direction];
+        int z = WorldPointUtil.getPlane(node);
+        int successors = 0;
+
+        for (int next = 0; next < CollisionMap.DIRECTION_COUNT; next++) {
+            if ((movement & (1 << next)) == 0) {
+                continue;
+            }
+
+            int shortcut = SHORTCUTS[direction][next];
+            if (shortcut == BACKWARDS || shortcut != ANY_DIRECTION && (parentMovement & (1 << shortcut)) != 0) {
+                continue;
+            }
+
+            int[] detours = DETOURS[direction][next];
+            boolean pruned = false;
+
+            for (int i = 0; i < detours.length && !pruned; i += 2) {
+                int first = detours[i];
+                pruned = (parentMovement & (1 << first)) != 0 &&
+                        (movement(WorldPointUtil.pack(parentX + CollisionMap.DX[first], parentY + CollisionMap.DY[first], z)) & (1 << detours[i + 1])) != 0;
+            }
+
+            if (!pruned) {
+                successors |= 1 << next;
+            }
+        }
+
+        return successors;
+    }
+
+    /**
+     * Moves from {@code node} in {@code direction} until reaching a tile with neighbours that can't be pruned, the
+     * goal or a transport.
+     *
+     * @return the jump point, or {@link WorldPointUtil#UNDEFINED} if the way is blocked first
+     */
+    int jump(int node, int direction) {
+        int dx = CollisionMap.DX[direction];
+        int dy = CollisionMap.DY[direction];
+        boolean diagonal = dx != 0 && dy != 0;
+        int natural = 1 << direction;
+
+        if (diagonal) {
+            natural |= 1 << direction(dx, 0) | 1 << direction(0, dy);
+        }
+
+        int movement = movement(node);
+
+        while ((movement & (1 << direction)) != 0) {
+            node = WorldPointUtil.pack(WorldPointUtil.getX(node) + dx, WorldPointUtil.getY(node) + dy, WorldPointUtil.getPlane(node));
+
+            if (goal.contains(node) || transports.getDestinations(node).length > 0) {
+                return node;
+            }
+
+            int parentMovement = movement;
+            movement = movement(node);
+            int successors = successors(node, direction, movement, parentMovement);
+
+            if ((successors & ~natural) != 0) {
+                return node;
+            }
+
+            if (diagonal &&
+                    ((successors & (1 << direction(dx, 0))) != 0 && jump(node, direction(dx, 0)) != WorldPointUtil.UNDEFINED ||
+                            (successors & (1 << direction(0, dy))) != 0 && jump(node, direction(0, dy)) != WorldPointUtil.UNDEFINED)) {
+                return node;
+            }
+
+            if ((successors & (1 << direction)) == 0) {
+                break;
+            }
+        }
+
+        return WorldPointUtil.UNDEFINED;
+    }
+
+    private static int direction(int dx, int dy) {
+        return DIRECTIONS[(dy + 1) * 3 + dx + 1];
+    }
+
+    private static boolean isStep(int dx, int dy) {
+        return Math.abs(dx) <= 1 && Math.abs(dy) <= 1 && (dx != 0 || dy != 0);
+    }
+
+    /**
+     * Orders routes of two steps by fewer diagonal steps, then a diagonal step first, then the direction of the first.
+     */
+    private static int rank(int first, int second) {
+        int diagonals = (first >= 4 ? 1 : 0) + (second >= 4 ? 1 : 0);
+        return (diagonals << 4) | (first >= 4 ? 0 : 1 << 3) | first;
+    }
+
+    private int movement(int node) {
+        int x = WorldPointUtil.getX(node);
+        int y = WorldPointUtil.getY(node);
+        int z = WorldPointUtil.getPlane(node);
+        int movement = map.movementMask(x, y, z);
+
+        // The wilderness is much larger than the tiles around this one, so it can only cover some of them if it covers a corner
+        if (!avoidWilderness || movement == 0 ||
+                !Wilderness.contains(WorldPointUtil.pack(x - 1, y - 1, z)) &&
+                        !Wilderness.contains(WorldPointUtil.pack(x + 1, y - 1, z)) &&
+                        !Wilderness.contains(WorldPointUtil.pack(x - 1, y + 1, z)) &&
+                        !Wilderness.contains(WorldPointUtil.pack(x + 1, y + 1, z))) {
+            return movement;
+        }
+
+        for (int direction = 0; direction < CollisionMap.DIRECTION_COUNT; direction++) {
+            if ((movement & (1 << direction)) != 0 &&
+                    Wilderness.contains(WorldPointUtil.pack(x + CollisionMap.DX[direction], y + CollisionMap.DY[direction], z))) {
+                movement &= ~(1 << direction);
+            }
+        }
+
+        return movement;
+    }
+}
@@ -0,0 +1,403 @@
+package shortestpath.pathfinder;
+
+import shortestpath.Util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Distances to and from a few landmark tiles, used for the triangle inequality lower bound of A* with landmarks. To
+ * keep the table small, distances are only stored as their minimum and maximum over square chunks of each region and
+ * plane, which loosens the bound but keeps it admissible.
+ */
+public class LandmarkTable {
+    private static final int MAGIC = 0x5350414C;
+    private static final int VERSION = 1;
+    private static final int CHUNK_SHIFT = 4;
+    private static final char UNKNOWN = Character.MAX_VALUE;
+    private static final int FORWARD_MIN = 0;
+    private static final int FORWARD_MAX = 1;
+    private static final int BACKWARD_MIN = 2;
+    private static final int BACKWARD_MAX = 3;
+    private final int regionShift;
+    private final int widthInRegions;
+    private final int heightInRegions;
+    private final int[] regionSlots;
+    private final int[] landmarks;
+    // Four bounds per landmark per chunk, with all landmarks of a chunk next to each other
+    private final char[] bounds;
+
+    private LandmarkTable(int regionSize, int widthInRegions, int heightInRegions, int[] regionSlots, int[] landmarks, char[] bounds) {
+        this.regionShift = Integer.numberOfTrailingZeros(regionSize);
+        this.widthInRegions = widthInRegions;
+        this.heightInRegions = heightInRegions;
+        this.regionSlots = regionSlots;
+        this.landmarks = landmarks;
+        this.bounds = bounds;
+    }
+
+    /**
+     * Picks {@code landmarkCount} landmarks, each as far as possible from the ones before it, starting from the tile
+     * furthest from {@code seed}, and records the walking and transport distances to and from each of them.
+     */
+    public static LandmarkTable build(CollisionMap map, TransportGraph transports, int seed, int landmarkCount) {
+        int width = map.getWidthInRegions();
+        int height = map.getHeightInRegions();
+        int[] regionSlots = new int[width * height];
+        int slotCount = 0;
+
+        for (int i = 0; i < regionSlots.length; i++) {
+            regionSlots[i] = map.hasRegion(i % width, i / width) ? slotCount++ : -1;
+        }
+
+        LandmarkTable table = new LandmarkTable(map.getRegionSize(), width, height, regionSlots, new int[landmarkCount], null);
+        Builder builder = new Builder(table, map, transports, slotCount);
+        return builder.build(seed, landmarkCount);
+    }
+
+    public static LandmarkTable read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a landmark table file");
+            }
+
+            int regionSize = in.readInt();
+            int widthInRegions = in.readInt();
+            int heightInRegions = in.readInt();
+            int[] regionSlots = new int[in.readInt()];
+            for (int i = 0; i < regionSlots.length; i++) {
+                regionSlots[i] = in.readInt();
+            }
+
+            int[] landmarks = new int[in.readInt()];
+            for (int i = 0; i < landmarks.length; i++) {
+                landmarks[i] = in.readInt();
+            }
+
+            char[] bounds = new char[in.readInt()];
+            for (int i = 0; i < bounds.length; i++) {
+                bounds[i] = in.readChar();
+            }
+
+            return new LandmarkTable(regionSize, widthInRegions, heightInRegions, regionSlots, landmarks, bounds);
+        }
+    }
+
+    public void write(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(1 << regionShift);
+            out.writeInt(widthInRegions);
+            out.writeInt(heightInRegions);
+            out.writeInt(regionSlots.length);
+            for (int slot : regionSlots) {
+                out.writeInt(slot);
+            }
+
+            out.writeInt(landmarks.length);
+            for (int landmark : landmarks) {
+                out.writeInt(landmark);
+            }
+
+            out.writeInt(bounds.length);
+            for (char bound : bounds) {
+                out.writeChar(bound);
+            }
+        }
+
+        Util.writeAtomically(file, bytes.toByteArray());
+    }
+
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * @return a lower bound on the cost of getting from {@code from} to {@code to}, both packed points
+     */
+    public int lowerBound(int from, int to) {
+        int fromChunk = chunkIndex(from);
+        int toChunk = chunkIndex(to);
+
+        if (fromChunk < 0 || toChunk < 0) {
+            return 0;
+        }
+
+        int bound = 0;
+        int fromOffset = fromChunk * landmarks.length * 4;
+        int toOffset = toChunk * landmarks.length * 4;
+
+        for (int i = 0; i < landmarks.length * 4; i += 4) {
+            // d(L, to) - d(L, from) <= d(from, to)
+            char toMin = bounds[toOffset + i + FORWARD_MIN];
+            char fromMax = bounds[fromOffset + i + FORWARD_MAX];
+            if (toMin != UNKNOWN && fromMax != UNKNOWN) {
+                bound = Math.max(bound, toMin - fromMax);
+            }
+
+            // d(from, L) - d(to, L) <= d(from, to)
+            char fromMin = bounds[fromOffset + i + BACKWARD_MIN];
+            char toMax = bounds[toOffset + i + BACKWARD_MAX];
+            if (fromMin != UNKNOWN && toMax != UNKNOWN) {
+                bound = Math.max(bound, fromMin - toMax);
+            }
+        }
+
+        return bound;
+    }
+
+    private int chunkIndex(int point) {
+        int tile = tileIndex(point);
+        return tile < 0 ? -1 : tileChunk(tile);
+    }
+
+    private int tileChunk(int tile) {
+        int localMask = (1 << regionShift) - 1;
+        int chunkShift = regionShift - CHUNK_SHIFT;
+        int plane = tile >>> regionShift * 2;
+        int chunkX = (tile & localMask) >> CHUNK_SHIFT;
+        int chunkY = (tile >> regionShift & localMask) >> CHUNK_SHIFT;
+        return (((plane << chunkShift) | chunkY) << chunkShift) | chunkX;
+    }
+
+    /**
+     * @return a dense index of {@code point} among the tiles of all regions that have data, or -1 if it is outside them
+     */
+    private int tileIndex(int point) {
+        if (point == WorldPointUtil.UNDEFINED) {
+            return -1;
+        }
+
+        int x = WorldPointUtil.getX(point);
+        int y = WorldPointUtil.getY(point);
+        int regionX = x >> regionShift;
+        int regionY = y >> regionShift;
+
+        if (regionX >= widthInRegions || regionY >= heightInRegions) {
+            return -1;
+        }
+
+        int slot = regionSlots[regionY * widthInRegions + regionX];
+        if (slot < 0) {
+            return -1;
+        }
+
+        int localMask = (1 << regionShift) - 1;
+        int plane = slot * FlagMap.PLANE_COUNT + WorldPointUtil.getPlane(point);
+        return (((plane << regionShift) | (y & localMask)) << regionShift) | (x & localMask);
+    }
+
+    private static class Builder {
+        private final LandmarkTable table;
+        private final CollisionMap map;
+        private final TransportGraph transports;
+        private final TransportGraph reversedTransports;
+        private final BitSet graphTiles;
+        private final char[] distances;
+        private final char[] bounds;
+        private final char[] nearestLandmark;
+        private final IntQueue queue = new IntQueue(1 << 16);
+
+        Builder(LandmarkTable table, CollisionMap map, TransportGraph transports, int slotCount) {
+            this.table = table;
+            this.map = map;
+            this.transports = transports;
+            this.reversedTransports = transports.reversed();
+            int chunkCount = slotCount * FlagMap.PLANE_COUNT << 2 * (table.regionShift - CHUNK_SHIFT);
+            distances = new char[slotCount * FlagMap.PLANE_COUNT << 2 * table.regionShift];
+            bounds = new char[chunkCount * table.landmarks.length * 4];
+            nearestLandmark = new char[chunkCount];
+            Arrays.fill(nearestLandmark, UNKNOWN);
+            graphTiles = findGraphTiles();
+        }
+
+        LandmarkTable build(int seed, int landmarkCount) {
+            search(seed, transports);
+            int landmark = furthestTile(-1);
+
+            for (int i = 0; i < landmarkCount; i++) {
+                table.landmarks[i] = landmark;
+
+                search(landmark, transports);
+                aggregate(i, FORWARD_MIN, FORWARD_MAX);
+
+                int nearestChunk = -1;
+                for (int chunk = 0; chunk < nearestLandmark.length; chunk++) {
+                    char distance = bounds[(chunk * landmarkCount + i) * 4 + FORWARD_MIN];
+                    nearestLandmark[chunk] = (char) Math.min(nearestLandmark[chunk], distance);
+
+                    if (nearestLandmark[chunk] != UNKNOWN && (nearestChunk < 0 || nearestLandmark[chunk] > nearestLandmark[nearestChunk])) {
+                        nearestChunk = chunk;
+                    }
+                }
+
+                // The next landmark is the tile furthest from this one in the chunk furthest from all landmarks so far
+                landmark = furthestTile(nearestChunk);
+
+                search(table.landmarks[i], reversedTransports);
+                aggregate(i, BACKWARD_MIN, BACKWARD_MAX);
+            }
+
+            return new LandmarkTable(1 << table.regionShift, table.widthInRegions, table.heightInRegions, table.regionSlots, table.landmarks, bounds);
+        }
+
+        /**
+         * Finds the tiles a search can pass through, which are those with a walkable neighbour or a transport.
+         */
+        private BitSet findGraphTiles() {
+            BitSet tiles = new BitSet(distances.length);
+            int regionSize = 1 << table.regionShift;
+
+            for (int index = 0; index < table.regionSlots.length; index++) {
+                if (table.regionSlots[index] < 0) {
+                    continue;
+                }
+
+                int baseX = (index % table.widthInRegions) << table.regionShift;
+                int baseY = (index / table.widthInRegions) << table.regionShift;
+
+                for (int z = 0; z < FlagMap.PLANE_COUNT; z++) {
+                    for (int y = baseY; y < baseY + regionSize; y++) {
+                        for (int x = baseX; x < baseX + regionSize; x++) {
+                            if (map.movementMask(x, y, z) != 0) {
+                                tiles.set(table.tileIndex(WorldPointUtil.pack(x, y, z)));
+                            }
+                        }
+                    }
+                }
+            }
+
+            for (int origin : transports.getOrigins()) {
+                setTile(tiles, origin);
+
+                for (int destination : transports.getDestinations(origin)) {
+                    setTile(tiles, destination);
+                }
+            }
+
+            return tiles;
+        }
+
+        private void setTile(BitSet tiles, int point) {
+            int tile = table.tileIndex(point);
+            if (tile >= 0) {
+                tiles.set(tile);
+            }
+        }
+
+        /**
+         * Breadth-first search from {@code source} over all tiles, following {@code transports}. Walking is symmetric,
+         * so searching with the reversed transports gives the distances towards {@code source}.
+         */
+        private void search(int source, TransportGraph transports) {
+            Arrays.fill(distances, UNKNOWN);
+            queue.clear();
+
+            int sourceTile = table.tileIndex(source);
+            if (sourceTile < 0) {
+                return;
+            }
+
+            distances[sourceTile] = 0;
+            queue.add(source);
+
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                int x = WorldPointUtil.getX(node);
+                int y = WorldPointUtil.getY(node);
+                int z = WorldPointUtil.getPlane(node);
+                int distance = Math.min(distances[table.tileIndex(node)] + 1, UNKNOWN - 1);
+                int movement = map.movementMask(x, y, z);
+
+                for (int direction = 0; direction < CollisionMap.DIRECTION_COUNT; direction++) {
+                    if ((movement & (1 << direction)) != 0) {
+                        visit(WorldPointUtil.pack(x + CollisionMap.DX[direction], y + CollisionMap.DY[direction], z), distance);
+                    }
+                }
+
+                for (int destination : transports.getDestinations(node)) {
+                    visit(destination, distance);
+                }
+            }
+        }
+
+        private void visit(int point, int distance) {
+            int tile = table.tileIndex(point);
+
+            if (tile >= 0 && distances[tile] == UNKNOWN) {
+                distances[tile] = (char) distance;
+                queue.add(point);
+            }
+        }
+
+        /**
+         * Stores the minimum and maximum distance over the tiles of each chunk. A chunk with a tile the search didn't
+         * reach has no maximum, since the distance to that tile may be unbounded.
+         */
+        private void aggregate(int landmark, int minOffset, int maxOffset) {
+            int landmarkCount = table.landmarks.length;
+
+            for (int chunk = 0; chunk < nearestLandmark.length; chunk++) {
+                int offset = (chunk * landmarkCount + landmark) * 4;
+                bounds[offset + minOffset] = UNKNOWN;
+                bounds[offset + maxOffset] = 0;
+            }
+
+            for (int tile = graphTiles.nextSetBit(0); tile >= 0; tile = graphTiles.nextSetBit(tile + 1)) {
+                int offset = (table.tileChunk(tile) * landmarkCount + landmark) * 4;
+                char distance = distances[tile];
+
+                bounds[offset + minOffset] = (char) Math.min(bounds[offset + minOffset], distance);
+                bounds[offset + maxOffset] = (char) Math.max(bounds[offset + maxOffset], distance);
+            }
+
+            for (int chunk = 0; chunk < nearestLandmark.length; chunk++) {
+                int offset = (chunk * landmarkCount + landmark) * 4;
+                if (bounds[offset + minOffset] == UNKNOWN) {
+                    bounds[offset + maxOffset] = UNKNOWN;
+                }
+            }
+        }
+
+        /**
+         * @return the reached tile in {@code chunk} (or anywhere if it is -1) with the largest distance from the last
+         * search, as a packed point
+         */
+        private int furthestTile(int chunk) {
+            int furthest = -1;
+
+            for (int tile = graphTiles.nextSetBit(0); tile >= 0; tile = graphTiles.nextSetBit(tile + 1)) {
+                if ((chunk < 0 || table.tileChunk(tile) == chunk) && distances[tile] != UNKNOWN && (furthest < 0 || distances[tile] > distances[furthest])) {
+                    furthest = tile;
+                }
+            }
+
+            return furthest < 0 ? WorldPointUtil.UNDEFINED : toPoint(furthest);
+        }
+
+        private int toPoint(int tile) {
+            int localMask = (1 << table.regionShift) - 1;
+            int plane = tile >>> table.regionShift * 2;
+            int slot = plane / FlagMap.PLANE_COUNT;
+            int index = 0;
+
+            while (table.regionSlots[index] != slot) {
+                index++;
+            }
+
+            int x = ((index % table.widthInRegions) << table.regionShift) | (tile & localMask);
+            int y = ((index / table.widthInRegions) << table.regionShift) | (tile >> table.regionShift & localMask);
+            return WorldPointUtil.pack(x, y, plane % FlagMap.PLANE_COUNT);
+        }
+    }
+}
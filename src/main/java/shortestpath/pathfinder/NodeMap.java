@@ -0,0 +1,155 @@
+package shortestpath.pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from packed points to their parent and cost, used as the visited set of a search.
+ */
+public class NodeMap {
+    private static final float LOAD_FACTOR = 0.5f;
+    private int[] keys;
+    private int[] parents;
+    private int[] costs;
+    private boolean[] closed;
+    private int mask;
+    private int size;
+
+    public NodeMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int key) {
+        return slot(key) >= 0;
+    }
+
+    public int getParent(int key) {
+        int slot = slot(key);
+        return slot < 0 ? WorldPointUtil.UNDEFINED : parents[slot];
+    }
+
+    public int getCost(int key) {
+        int slot = slot(key);
+        return slot < 0 ? Integer.MAX_VALUE : costs[slot];
+    }
+
+    public boolean isClosed(int key) {
+        int slot = slot(key);
+        return slot >= 0 && closed[slot];
+    }
+
+    public void close(int key) {
+        int slot = slot(key);
+        if (slot >= 0) {
+            closed[slot] = true;
+        }
+    }
+
+    /**
+     * Records {@code parent} and {@code cost} for {@code key} unless it is already known at a cost no greater.
+     *
+     * @return whether the entry was added or improved
+     */
+    public boolean put(int key, int parent, int cost) {
+        return put(key, parent, cost, false);
+    }
+
+    /**
+     * Like {@link #put(int, int, int)}, but also improves closed entries and opens them again, which a search with an
+     * inconsistent heuristic needs to stay optimal.
+     */
+    public boolean putOrReopen(int key, int parent, int cost) {
+        return put(key, parent, cost, true);
+    }
+
+    private boolean put(int key, int parent, int cost, boolean reopen) {
+        int slot = hash(key) & mask;
+
+        while (keys[slot] != WorldPointUtil.UNDEFINED) {
+            if (keys[slot] == key) {
+                if ((closed[slot] && !reopen) || costs[slot] <= cost) {
+                    return false;
+                }
+
+                parents[slot] = parent;
+                costs[slot] = cost;
+                closed[slot] = false;
+                return true;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        parents[slot] = parent;
+        costs[slot] = cost;
+
+        if (++size > keys.length * LOAD_FACTOR) {
+            grow();
+        }
+
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, WorldPointUtil.UNDEFINED);
+        Arrays.fill(closed, false);
+        size = 0;
+    }
+
+    private int slot(int key) {
+        int slot = hash(key) & mask;
+
+        while (keys[slot] != WorldPointUtil.UNDEFINED) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldParents = parents;
+        int[] oldCosts = costs;
+        boolean[] oldClosed = closed;
+        allocate(oldKeys.length * 2);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == WorldPointUtil.UNDEFINED) {
+                continue;
+            }
+
+            int slot = hash(oldKeys[i]) & mask;
+            while (keys[slot] != WorldPointUtil.UNDEFINED) {
+                slot = (slot + 1) & mask;
+            }
+
+            keys[slot] = oldKeys[i];
+            parents[slot] = oldParents[i];
+            costs[slot] = oldCosts[i];
+            closed[slot] = oldClosed[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        parents = new int[capacity];
+        costs = new int[capacity];
+        closed = new boolean[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, WorldPointUtil.UNDEFINED);
+    }
+
+    static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
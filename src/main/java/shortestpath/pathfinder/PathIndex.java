@@ -0,0 +1,108 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the points of a path near a tile without going through the whole path, by sorting them into square cells.
+ */
+public class PathIndex {
+    private static final int CELL_SHIFT = 3;
+    // How far past the last point found to look before falling back to the cells
+    private static final int LOOKAHEAD = 16;
+    private final int[] points;
+    // The cell of each point in the high half and its index in the low half, sorted
+    private final long[] cells;
+    private int lastIndex;
+
+    public PathIndex(List<WorldPoint> path) {
+        points = new int[path.size()];
+        cells = new long[path.size()];
+
+        for (int i = 0; i < points.length; i++) {
+            points[i] = WorldPointUtil.pack(path.get(i));
+            cells[i] = ((long) cell(WorldPointUtil.getX(points[i]), WorldPointUtil.getY(points[i]), WorldPointUtil.getPlane(points[i])) << 32) | i;
+        }
+
+        Arrays.sort(cells);
+    }
+
+    /**
+     * @return the index of a point on the same plane as {@code point} and less than {@code distance} tiles from it,
+     * or -1 if there is none
+     */
+    public int find(WorldPoint point, int distance) {
+        int packedPoint = WorldPointUtil.pack(point);
+
+        // Players mostly follow the path, so the points just ahead of where they last were are the likeliest
+        for (int i = lastIndex; i < points.length && i < lastIndex + LOOKAHEAD; i++) {
+            if (isNear(points[i], packedPoint, distance)) {
+                return lastIndex = i;
+            }
+        }
+
+        int reach = distance - 1;
+        if (reach < 0) {
+            return -1;
+        }
+
+        int minX = Math.max(0, point.getX() - reach) >> CELL_SHIFT;
+        int minY = Math.max(0, point.getY() - reach) >> CELL_SHIFT;
+        int maxX = (point.getX() + reach) >> CELL_SHIFT;
+        int maxY = (point.getY() + reach) >> CELL_SHIFT;
+
+        // For large distances the whole path can be quicker to check than the cells around the point
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > points.length) {
+            for (int i = 0; i < points.length; i++) {
+                if (isNear(points[i], packedPoint, distance)) {
+                    return lastIndex = i;
+                }
+            }
+
+            return -1;
+        }
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                long cell = (long) WorldPointUtil.pack(x, y, point.getPlane()) << 32;
+
+                for (int i = firstAtLeast(cell); i < cells.length && (cells[i] & 0xFFFFFFFF00000000L) == cell; i++) {
+                    int index = (int) cells[i];
+
+                    if (isNear(points[index], packedPoint, distance)) {
+                        return lastIndex = index;
+                    }
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private int firstAtLeast(long value) {
+        int low = 0;
+        int high = cells.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (cells[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private static boolean isNear(int a, int b, int distance) {
+        return WorldPointUtil.getPlane(a) == WorldPointUtil.getPlane(b) && WorldPointUtil.distance(a, b) < distance;
+    }
+
+    private static int cell(int x, int y, int plane) {
+        return WorldPointUtil.pack(x >> CELL_SHIFT, y >> CELL_SHIFT, plane);
+    }
+}
@@ -1,130 +1,486 @@
 package shortestpath.pathfinder;
 
 import net.runelite.api.coords.WorldPoint;
-import shortestpath.ShortestPathPlugin;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class Pathfinder {
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    // Heuristic for nodes that can't reach the target at all, kept small enough not to overflow the heap priority
+    private static final int UNREACHABLE = 1 << 20;
+    // How often the progress listener is given the best route so far, checked every few thousand tiles
+    private static final long PROGRESS_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int PROGRESS_CHECK_MASK = (1 << 12) - 1;
     private final CollisionMap map;
-    private final Node start;
-    private final WorldPoint target;
-    private final List<Node> boundary = new LinkedList<>();
-    private final Set<WorldPoint> visited = new HashSet<>();
-    private final Map<WorldPoint, List<WorldPoint>> transports;
+    private final int start;
+    private final Goal goal;
+    // The goal's only tile, which the searches that only work towards a single tile need
+    private final int target;
+    private final IntQueue queue;
+    private final IntMinHeap heap;
+    private final NodeMap visited = new NodeMap(INITIAL_CAPACITY);
+    // Searched backwards from the target by the bidirectional search, with parents pointing towards the target
+    private final IntQueue reverseQueue;
+    private final NodeMap reverseVisited;
+    // The direction each tile was entered in by jump point search, in place of a parent
+    private final JumpPoints jumpPoints;
+    private final NodeMap arrivals;
+    private final TransportGraph transports;
+    private final RegionGraph regionGraph;
+    private final LandmarkTable landmarks;
     private final boolean avoidWilderness;
-    private Node nearest;
+    private final boolean useHeuristic;
+    // Breadth-first search only finds the shortest path while every step costs the same, so with transports that take
+    // longer it orders by cost instead, which makes it Dijkstra's algorithm
+    private final boolean useHeap;
+    private final boolean admissible;
+    private final int transportBound;
+    private int nearest = WorldPointUtil.UNDEFINED;
+    private volatile boolean cancelled;
+    private Consumer<List<WorldPoint>> progressListener;
+    private long nextProgress;
+    private int expanded;
+    private int frontierPeak;
+    private long searchNanos;
 
-    public Pathfinder(CollisionMap map, Map<WorldPoint, List<WorldPoint>> transports, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
+    public Pathfinder(CollisionMap map, TransportGraph transports, WorldPoint start, WorldPoint target, boolean avoidWilderness) {
+        this(map, transports, start, target, avoidWilderness, SearchAlgorithm.BREADTH_FIRST);
+    }
+
+    public Pathfinder(CollisionMap map, TransportGraph transports, WorldPoint start, WorldPoint target, boolean avoidWilderness, SearchAlgorithm algorithm) {
+        this(map, transports, null, start, target, avoidWilderness, algorithm);
+    }
+
+    /**
+     * @param regionGraph the abstract graph used by {@link SearchAlgorithm#HIERARCHICAL}, which falls back to A* when
+     *                    it is null or has no route
+     */
+    public Pathfinder(CollisionMap map, TransportGraph transports, RegionGraph regionGraph, WorldPoint start, WorldPoint target, boolean avoidWilderness, SearchAlgorithm algorithm) {
+        this(map, transports, regionGraph, null, start, target, avoidWilderness, algorithm);
+    }
+
+    /**
+     * @param landmarks the distance table used by {@link SearchAlgorithm#LANDMARKS}, which still finds the shortest
+     *                  path without it, only more slowly
+     */
+    public Pathfinder(CollisionMap map, TransportGraph transports, RegionGraph regionGraph, LandmarkTable landmarks, WorldPoint start, WorldPoint target, boolean avoidWilderness, SearchAlgorithm algorithm) {
+        this(map, transports, regionGraph, landmarks, start, Goal.of(target), avoidWilderness, algorithm);
+    }
+
+    public Pathfinder(CollisionMap map, TransportGraph transports, WorldPoint start, Goal goal, boolean avoidWilderness, SearchAlgorithm algorithm) {
+        this(map, transports, null, null, start, goal, avoidWilderness, algorithm);
+    }
+
+    /**
+     * @param goal the tiles the path may end on, of which a search finds the closest. The bidirectional, landmark and
+     *             hierarchical searches only work towards a single tile, and search like breadth-first and A* for a
+     *             goal of more than one
+     */
+    public Pathfinder(CollisionMap map, TransportGraph transports, RegionGraph regionGraph, LandmarkTable landmarks, WorldPoint start, Goal goal, boolean avoidWilderness, SearchAlgorithm algorithm) {
+        boolean singleTile = goal.getTile() != WorldPointUtil.UNDEFINED;
         this.map = map;
         this.transports = transports;
-        this.target = target;
-        this.start = new Node(start, null);
+        this.regionGraph = algorithm == SearchAlgorithm.HIERARCHICAL && singleTile ? regionGraph : null;
+        this.landmarks = algorithm == SearchAlgorithm.LANDMARKS && singleTile ? landmarks : null;
+        this.start = WorldPointUtil.pack(start);
+        this.goal = goal;
+        this.target = goal.getTile();
         this.avoidWilderness = avoidWilderness;
-        nearest = null;
+        useHeuristic = algorithm != SearchAlgorithm.BREADTH_FIRST && algorithm != SearchAlgorithm.BIDIRECTIONAL;
+        useHeap = useHeuristic || transports.isWeighted();
+        admissible = algorithm == SearchAlgorithm.LANDMARKS;
+        transportBound = admissible ? transportBound(transports, goal) : UNREACHABLE;
+        queue = useHeap ? null : new IntQueue(INITIAL_CAPACITY);
+        heap = useHeap ? new IntMinHeap(INITIAL_CAPACITY) : null;
+        // Meeting in the middle a level at a time also needs every step to cost the same
+        reverseQueue = algorithm == SearchAlgorithm.BIDIRECTIONAL && !useHeap && singleTile ? new IntQueue(INITIAL_CAPACITY) : null;
+        reverseVisited = algorithm == SearchAlgorithm.BIDIRECTIONAL && !useHeap && singleTile ? new NodeMap(INITIAL_CAPACITY) : null;
+        jumpPoints = algorithm == SearchAlgorithm.JUMP_POINT ? new JumpPoints(map, transports, goal, avoidWilderness) : null;
+        arrivals = algorithm == SearchAlgorithm.JUMP_POINT ? new NodeMap(INITIAL_CAPACITY) : null;
     }
 
+    /**
+     * @return a lower bound on the cost of any route to {@code goal} that takes a transport, which has to end with
+     * walking from the destination of the last one
+     */
+    private static int transportBound(TransportGraph transports, Goal goal) {
+        int bound = UNREACHABLE;
+
+        for (int origin : transports.getOrigins()) {
+            int[] destinations = transports.getDestinations(origin);
+            int[] durations = transports.getDurations(origin);
+
+            for (int i = 0; i < destinations.length; i++) {
+                int walking = goal.walkingDistance(destinations[i]);
+
+                if (walking != Integer.MAX_VALUE) {
+                    bound = Math.min(bound, durations[i] + walking);
+                }
+            }
+        }
+
+        return bound;
+    }
+
+    /**
+     * Makes a {@link #find()} in progress on another thread give up and return null.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Has {@link #find()} pass the route to the tile closest to the goal so far to {@code listener} now and then,
+     * on the thread searching.
+     */
+    public void setProgressListener(Consumer<List<WorldPoint>> listener) {
+        progressListener = listener;
+        nextProgress = System.nanoTime() + PROGRESS_INTERVAL;
+    }
+
+    /**
+     * @return the work done by {@link #find()}, which doesn't count that of a hierarchical search that found a route
+     */
+    public SearchStats getStats() {
+        int visitedCount = visited.size() + (reverseVisited == null ? 0 : reverseVisited.size());
+        return new SearchStats(expanded, frontierPeak, visitedCount, searchNanos);
+    }
+
+    /**
+     * @return the path to the goal, or to the tile closest to it if it can't be reached, or null if cancelled
+     */
     public List<WorldPoint> find() {
-        boundary.add(start);
+        long startTime = System.nanoTime();
+        List<WorldPoint> path = search();
+        searchNanos = System.nanoTime() - startTime;
+        return path;
+    }
+
+    private List<WorldPoint> search() {
+        if (regionGraph != null) {
+            IntList path = new HierarchicalSearch(map, regionGraph, transports, avoidWilderness).find(start, target);
+
+            if (path != null) {
+                return toWorldPoints(path);
+            }
+        }
+
+        if (reverseQueue != null) {
+            return findBidirectional();
+        }
+
+        visited.put(start, WorldPointUtil.UNDEFINED, 0);
+        push(start, 0);
+
+        if (arrivals != null) {
+            arrivals.put(start, JumpPoints.ANY_DIRECTION, 0);
+        }
 
         int bestDistance = Integer.MAX_VALUE;
 
-        while (!boundary.isEmpty()) {
-            Node node = boundary.remove(0);
+        while (useHeap ? !heap.isEmpty() : !queue.isEmpty()) {
+            if (cancelled) {
+                return null;
+            }
+
+            int node = useHeap ? heap.poll() : queue.poll();
+
+            if (useHeap) {
+                if (visited.isClosed(node)) {
+                    continue;
+                }
 
-            if (node.position.equals(target)) {
-                return node.path();
+                visited.close(node);
             }
 
-            int distance = Math.max(Math.abs(node.position.getX() - target.getX()), Math.abs(node.position.getY() - target.getY()));
-            if (nearest == null || distance < bestDistance) {
+            reportProgress();
+
+            if (goal.contains(node)) {
+                return path(node);
+            }
+
+            int distance = goal.distance(node);
+            if (nearest == WorldPointUtil.UNDEFINED || distance < bestDistance) {
                 nearest = node;
                 bestDistance = distance;
             }
 
-            addNeighbors(node);
+            if (jumpPoints != null) {
+                addJumpPoints(node);
+            } else {
+                addNeighbors(node);
+            }
         }
 
-        if (nearest != null) {
-            return nearest.path();
+        if (nearest != WorldPointUtil.UNDEFINED) {
+            return path(nearest);
         }
 
         return null;
     }
 
-    private void addNeighbors(Node node) {
-        if (map.w(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() - 1, node.position.getY(), node.position.getPlane()));
+    /**
+     * Breadth-first search from both ends, a whole level at a time on whichever side has the smaller frontier. Each
+     * new tile is checked against the other side, and once a level produces a meeting no shorter route can exist, so
+     * the best meeting of that level is the shortest route.
+     */
+    private List<WorldPoint> findBidirectional() {
+        visited.put(start, WorldPointUtil.UNDEFINED, 0);
+        queue.add(start);
+        reverseVisited.put(target, WorldPointUtil.UNDEFINED, 0);
+        reverseQueue.add(target);
+
+        if (start == target) {
+            return path(start);
         }
 
-        if (map.e(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() + 1, node.position.getY(), node.position.getPlane()));
+        TransportGraph reverseTransports = transports.reversed();
+        int bestDistance = Integer.MAX_VALUE;
+
+        // Once the backward search runs out there is no need to expand it, but the forward search can still meet it
+        while (!queue.isEmpty()) {
+            boolean forward = reverseQueue.isEmpty() || queue.size() <= reverseQueue.size();
+            IntQueue frontier = forward ? queue : reverseQueue;
+            int meeting = WorldPointUtil.UNDEFINED;
+            int meetingCost = Integer.MAX_VALUE;
+
+            for (int i = frontier.size(); i > 0; i--) {
+                if (cancelled) {
+                    return null;
+                }
+
+                reportProgress();
+
+                int node = frontier.poll();
+
+                if (forward) {
+                    int distance = WorldPointUtil.distance(node, target);
+                    if (nearest == WorldPointUtil.UNDEFINED || distance < bestDistance) {
+                        nearest = node;
+                        bestDistance = distance;
+                    }
+                }
+
+                int x = WorldPointUtil.getX(node);
+                int y = WorldPointUtil.getY(node);
+                int z = WorldPointUtil.getPlane(node);
+                int movement = map.movementMask(x, y, z);
+
+                for (int direction = 0; direction < CollisionMap.DIRECTION_COUNT; direction++) {
+                    if ((movement & (1 << direction)) != 0) {
+                        int neighbor = WorldPointUtil.pack(x + CollisionMap.DX[direction], y + CollisionMap.DY[direction], z);
+                        int cost = addLevelNeighbor(forward, node, neighbor);
+
+                        if (cost < meetingCost) {
+                            meeting = neighbor;
+                            meetingCost = cost;
+                        }
+                    }
+                }
+
+                for (int transport : (forward ? transports : reverseTransports).getDestinations(node)) {
+                    int cost = addLevelNeighbor(forward, node, transport);
+
+                    if (cost < meetingCost) {
+                        meeting = transport;
+                        meetingCost = cost;
+                    }
+                }
+            }
+
+            if (meeting != WorldPointUtil.UNDEFINED) {
+                return joinedPath(meeting);
+            }
         }
 
-        if (map.s(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX(), node.position.getY() - 1, node.position.getPlane()));
+        return nearest == WorldPointUtil.UNDEFINED ? null : path(nearest);
+    }
+
+    /**
+     * @return the cost of the route through {@code neighbor} if the other side has already reached it, or
+     * {@link Integer#MAX_VALUE}
+     */
+    private int addLevelNeighbor(boolean forward, int node, int neighbor) {
+        if (avoidWilderness && Wilderness.contains(neighbor)) {
+            return Integer.MAX_VALUE;
         }
 
-        if (map.n(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX(), node.position.getY() + 1, node.position.getPlane()));
+        NodeMap own = forward ? visited : reverseVisited;
+        NodeMap other = forward ? reverseVisited : visited;
+        int cost = own.getCost(node) + 1;
+
+        if (!own.put(neighbor, node, cost)) {
+            return Integer.MAX_VALUE;
         }
 
-        if (map.sw(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() - 1, node.position.getY() - 1, node.position.getPlane()));
+        (forward ? queue : reverseQueue).add(neighbor);
+        frontierPeak = Math.max(frontierPeak, queue.size() + reverseQueue.size());
+        int otherCost = other.getCost(neighbor);
+        return otherCost == Integer.MAX_VALUE ? Integer.MAX_VALUE : cost + otherCost;
+    }
+
+    private List<WorldPoint> joinedPath(int meeting) {
+        List<WorldPoint> path = path(meeting);
+
+        for (int n = reverseVisited.getParent(meeting); n != WorldPointUtil.UNDEFINED; n = reverseVisited.getParent(n)) {
+            path.add(WorldPointUtil.unpack(n));
         }
 
-        if (map.se(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() + 1, node.position.getY() - 1, node.position.getPlane()));
+        return path;
+    }
+
+    private void addNeighbors(int node) {
+        int x = WorldPointUtil.getX(node);
+        int y = WorldPointUtil.getY(node);
+        int z = WorldPointUtil.getPlane(node);
+        int cost = visited.getCost(node);
+
+        int movement = map.movementMask(x, y, z);
+
+        for (int direction = 0; direction < CollisionMap.DIRECTION_COUNT; direction++) {
+            if ((movement & (1 << direction)) != 0) {
+                addNeighbor(node, WorldPointUtil.pack(x + CollisionMap.DX[direction], y + CollisionMap.DY[direction], z), cost + 1);
+            }
         }
 
-        if (map.nw(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() - 1, node.position.getY() + 1, node.position.getPlane()));
+        int[] destinations = transports.getDestinations(node);
+        int[] durations = transports.getDurations(node);
+        for (int i = 0; i < destinations.length; i++) {
+            addNeighbor(node, destinations[i], cost + durations[i]);
         }
+    }
+
+    private void addJumpPoints(int node) {
+        int cost = visited.getCost(node);
+        int successors = jumpPoints.successors(node, arrivals.getParent(node));
 
-        if (map.ne(node.position.getX(), node.position.getY(), node.position.getPlane())) {
-            addNeighbor(node, new WorldPoint(node.position.getX() + 1, node.position.getY() + 1, node.position.getPlane()));
+        for (int direction = 0; direction < CollisionMap.DIRECTION_COUNT; direction++) {
+            if ((successors & (1 << direction)) == 0) {
+                continue;
+            }
+
+            int jumpPoint = jumpPoints.jump(node, direction);
+            if (jumpPoint == WorldPointUtil.UNDEFINED) {
+                continue;
+            }
+
+            int jumpCost = cost + WorldPointUtil.distance(node, jumpPoint);
+            if (addNeighbor(node, jumpPoint, jumpCost)) {
+                arrivals.put(jumpPoint, direction, jumpCost);
+            }
         }
 
-        for (WorldPoint transport : transports.getOrDefault(node.position, new ArrayList<>())) {
-            addNeighbor(node, transport);
+        int[] destinations = transports.getDestinations(node);
+        int[] durations = transports.getDurations(node);
+        for (int i = 0; i < destinations.length; i++) {
+            if (addNeighbor(node, destinations[i], cost + durations[i])) {
+                arrivals.put(destinations[i], JumpPoints.ANY_DIRECTION, cost + durations[i]);
+            }
         }
     }
 
-    public List<WorldPoint> currentBest() {
-        return nearest==null ? null : nearest.path();
+    private void reportProgress() {
+        if ((++expanded & PROGRESS_CHECK_MASK) != 0 || progressListener == null || nearest == WorldPointUtil.UNDEFINED) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (now - nextProgress >= 0) {
+            nextProgress = now + PROGRESS_INTERVAL;
+            progressListener.accept(path(nearest));
+        }
     }
 
-    private void addNeighbor(Node node, WorldPoint neighbor) {
-        if (avoidWilderness && ShortestPathPlugin.isInWilderness(neighbor)) {
-            return;
+    private boolean addNeighbor(int node, int neighbor, int cost) {
+        if (avoidWilderness && Wilderness.contains(neighbor)) {
+            return false;
         }
 
-        if (!visited.add(neighbor)) {
-            return;
+        if (!(admissible ? visited.putOrReopen(neighbor, node, cost) : visited.put(neighbor, node, cost))) {
+            return false;
         }
 
-        boundary.add(new Node(neighbor, node));
+        push(neighbor, cost);
+        return true;
     }
 
-    private static class Node {
-        public final WorldPoint position;
-        public final Node previous;
+    private void push(int node, int cost) {
+        if (useHeap) {
+            // Ties on g + h are broken towards the deeper node, which keeps A* from fanning out across equally good tiles
+            heap.add(node, ((long) (cost + heuristic(node)) << 32) | (Integer.MAX_VALUE - cost));
+            frontierPeak = Math.max(frontierPeak, heap.size());
+        } else {
+            queue.add(node);
+            frontierPeak = Math.max(frontierPeak, queue.size());
+        }
+    }
+
+    /**
+     * Chebyshev distance underestimates walking but not routes with transports, so landmark search instead takes the
+     * best bound that holds for both.
+     */
+    private int heuristic(int node) {
+        if (!useHeuristic) {
+            return 0;
+        } else if (!admissible) {
+            return goal.distance(node);
+        }
 
-        public Node(WorldPoint position, Node previous) {
-            this.position = position;
-            this.previous = previous;
+        int walkingDistance = goal.walkingDistance(node);
+        int walking = walkingDistance == Integer.MAX_VALUE ? UNREACHABLE : walkingDistance;
+        int bound = Math.min(walking, transportBound);
+
+        if (landmarks != null) {
+            bound = Math.max(bound, landmarks.lowerBound(node, target));
         }
 
-        public List<WorldPoint> path() {
-            List<WorldPoint> path = new LinkedList<>();
-            Node node = this;
+        return bound;
+    }
 
-            while (node != null) {
-                path.add(0, node.position);
-                node = node.previous;
+    private List<WorldPoint> path(int node) {
+        int length = 0;
+        for (int n = node; n != WorldPointUtil.UNDEFINED; n = visited.getParent(n)) {
+            length += stepsFromParent(n);
+        }
+
+        WorldPoint[] path = new WorldPoint[length];
+        for (int n = node; n != WorldPointUtil.UNDEFINED; n = visited.getParent(n)) {
+            int steps = stepsFromParent(n);
+            int direction = steps > 1 ? arrivals.getParent(n) : JumpPoints.ANY_DIRECTION;
+
+            // Jump point search skips the tiles between jump points, which all lie in a line behind each one
+            for (int i = 0; i < steps; i++) {
+                path[--length] = direction == JumpPoints.ANY_DIRECTION ? WorldPointUtil.unpack(n) : new WorldPoint(
+                        WorldPointUtil.getX(n) - i * CollisionMap.DX[direction],
+                        WorldPointUtil.getY(n) - i * CollisionMap.DY[direction],
+                        WorldPointUtil.getPlane(n));
             }
+        }
+
+        return new ArrayList<>(Arrays.asList(path));
+    }
+
+    private int stepsFromParent(int node) {
+        int parent = visited.getParent(node);
 
-            return new ArrayList<>(path);
+        if (arrivals == null || parent == WorldPointUtil.UNDEFINED || arrivals.getParent(node) == JumpPoints.ANY_DIRECTION) {
+            return 1;
         }
+
+        return WorldPointUtil.distance(parent, node);
+    }
+
+    private static List<WorldPoint> toWorldPoints(IntList path) {
+        List<WorldPoint> result = new ArrayList<>(path.size());
+
+        for (int i = 0; i < path.size(); i++) {
+            result.add(WorldPointUtil.unpack(path.get(i)));
+        }
+
+        return result;
     }
 }
@@ -0,0 +1,346 @@
+package shortestpath.pathfinder;
+
+import shortestpath.Util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Abstract graph over the collision map for hierarchical search. Its nodes are the entrances on the borders between
+ * regions and the endpoints of transports. Edges are either direct (a border step or a transport) or go between two
+ * nodes of the same region and plane, weighted by the walking distance between them inside that region. Where the
+ * shortest walk crosses the wilderness, the edge is flagged, and a second edge holds the walk that avoids it if any.
+ */
+public class RegionGraph {
+    private static final int MAGIC = 0x53505247;
+    private static final int VERSION = 2;
+    // Border openings at least this long get an entrance at each end instead of one in the middle
+    private static final int SPLIT_SEGMENT_LENGTH = 8;
+    private static final int[] NONE = new int[0];
+    private final int regionShift;
+    private final int[] nodes;
+    private final int[] edgeStarts;
+    private final int[] edgeTargets;
+    private final int[] edgeCosts;
+    private final Map<Integer, int[]> regionNodes = new HashMap<>();
+
+    private RegionGraph(int regionSize, int[] nodes, int[] edgeStarts, int[] edgeTargets, int[] edgeCosts) {
+        regionShift = Integer.numberOfTrailingZeros(regionSize);
+        this.nodes = nodes;
+        this.edgeStarts = edgeStarts;
+        this.edgeTargets = edgeTargets;
+        this.edgeCosts = edgeCosts;
+
+        Map<Integer, IntList> lists = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            lists.computeIfAbsent(regionKey(nodes[i]), k -> new IntList(16)).add(i);
+        }
+
+        for (Map.Entry<Integer, IntList> entry : lists.entrySet()) {
+            regionNodes.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    public static RegionGraph build(CollisionMap map, TransportGraph transports, Executor executor) {
+        int regionSize = map.getRegionSize();
+        int regionShift = Integer.numberOfTrailingZeros(regionSize);
+        Map<Integer, IntList> regionPoints = new HashMap<>();
+        IntList directEdges = new IntList(1 << 16);
+
+        for (int regionY = 0; regionY < map.getHeightInRegions(); regionY++) {
+            for (int regionX = 0; regionX < map.getWidthInRegions(); regionX++) {
+                if (!map.hasRegion(regionX, regionY)) {
+                    continue;
+                }
+
+                for (int z = 0; z < FlagMap.PLANE_COUNT; z++) {
+                    if (map.hasRegion(regionX + 1, regionY)) {
+                        addEntrances(map, regionPoints, directEdges, regionShift, (regionX << regionShift) + regionSize - 1, regionY << regionShift, z, true);
+                    }
+
+                    if (map.hasRegion(regionX, regionY + 1)) {
+                        addEntrances(map, regionPoints, directEdges, regionShift, regionX << regionShift, (regionY << regionShift) + regionSize - 1, z, false);
+                    }
+                }
+            }
+        }
+
+        for (int origin : transports.getOrigins()) {
+            int[] destinations = transports.getDestinations(origin);
+            int[] durations = transports.getDurations(origin);
+
+            for (int i = 0; i < destinations.length; i++) {
+                addPoint(regionPoints, regionShift, origin);
+                addPoint(regionPoints, regionShift, destinations[i]);
+                addEdge(directEdges, origin, destinations[i], durations[i], true, false);
+            }
+        }
+
+        List<IntList> regions = new ArrayList<>(regionPoints.values());
+        IntList[] regionEdges = new IntList[regions.size()];
+        Util.forEachIndex(regions.size(), i -> regionEdges[i] = connectRegion(map, regions.get(i)), executor);
+
+        List<IntList> edgeLists = new ArrayList<>();
+        edgeLists.add(directEdges);
+        edgeLists.addAll(Arrays.asList(regionEdges));
+
+        IntList allPoints = new IntList(1 << 16);
+        for (IntList points : regionPoints.values()) {
+            for (int i = 0; i < points.size(); i++) {
+                allPoints.add(points.get(i));
+            }
+        }
+
+        int[] nodes = allPoints.toArray();
+        Arrays.sort(nodes);
+
+        int edgeCount = 0;
+        int[] edgeStarts = new int[nodes.length + 1];
+        for (IntList edges : edgeLists) {
+            for (int i = 0; i < edges.size(); i += 3) {
+                edgeStarts[Arrays.binarySearch(nodes, edges.get(i)) + 1]++;
+                edgeCount++;
+            }
+        }
+
+        for (int i = 0; i < nodes.length; i++) {
+            edgeStarts[i + 1] += edgeStarts[i];
+        }
+
+        int[] edgeTargets = new int[edgeCount];
+        int[] edgeCosts = new int[edgeCount];
+        int[] next = Arrays.copyOf(edgeStarts, nodes.length);
+        for (IntList edges : edgeLists) {
+            for (int i = 0; i < edges.size(); i += 3) {
+                int edge = next[Arrays.binarySearch(nodes, edges.get(i))]++;
+                edgeTargets[edge] = Arrays.binarySearch(nodes, edges.get(i + 1));
+                edgeCosts[edge] = edges.get(i + 2);
+            }
+        }
+
+        return new RegionGraph(regionSize, nodes, edgeStarts, edgeTargets, edgeCosts);
+    }
+
+    private static void addEntrances(CollisionMap map, Map<Integer, IntList> regionPoints, IntList directEdges, int regionShift, int x, int y, int z, boolean east) {
+        int regionSize = 1 << regionShift;
+        int segmentStart = -1;
+
+        for (int i = 0; i <= regionSize; i++) {
+            int ax = east ? x : x + i;
+            int ay = east ? y + i : y;
+            boolean open = i < regionSize && (east ?
+                    (map.movementMask(ax, ay, z) & CollisionMap.EAST) != 0 && (map.movementMask(ax + 1, ay, z) & CollisionMap.WEST) != 0 :
+                    (map.movementMask(ax, ay, z) & CollisionMap.NORTH) != 0 && (map.movementMask(ax, ay + 1, z) & CollisionMap.SOUTH) != 0);
+
+            if (open && segmentStart < 0) {
+                segmentStart = i;
+            } else if (!open && segmentStart >= 0) {
+                int segmentEnd = i - 1;
+
+                if (segmentEnd - segmentStart + 1 >= SPLIT_SEGMENT_LENGTH) {
+                    addEntrance(regionPoints, directEdges, regionShift, x, y, z, east, segmentStart);
+                    addEntrance(regionPoints, directEdges, regionShift, x, y, z, east, segmentEnd);
+                } else {
+                    addEntrance(regionPoints, directEdges, regionShift, x, y, z, east, (segmentStart + segmentEnd) / 2);
+                }
+
+                segmentStart = -1;
+            }
+        }
+    }
+
+    private static void addEntrance(Map<Integer, IntList> regionPoints, IntList directEdges, int regionShift, int x, int y, int z, boolean east, int offset) {
+        int a = east ? WorldPointUtil.pack(x, y + offset, z) : WorldPointUtil.pack(x + offset, y, z);
+        int b = east ? WorldPointUtil.pack(x + 1, y + offset, z) : WorldPointUtil.pack(x + offset, y + 1, z);
+        addPoint(regionPoints, regionShift, a);
+        addPoint(regionPoints, regionShift, b);
+        addEdge(directEdges, a, b, 1, true, false);
+        addEdge(directEdges, b, a, 1, true, false);
+    }
+
+    private static void addPoint(Map<Integer, IntList> regionPoints, int regionShift, int point) {
+        IntList points = regionPoints.computeIfAbsent(regionKey(point, regionShift), k -> new IntList(16));
+
+        if (!points.contains(point)) {
+            points.add(point);
+        }
+    }
+
+    private static void addEdge(IntList edges, int from, int to, int cost, boolean direct, boolean crossesWilderness) {
+        edges.add(from);
+        edges.add(to);
+        edges.add(cost << 2 | (crossesWilderness ? 2 : 0) | (direct ? 1 : 0));
+    }
+
+    private static IntList connectRegion(CollisionMap map, IntList points) {
+        RegionSearch search = new RegionSearch(map);
+        IntList edges = new IntList(points.size() * points.size() * 3);
+        boolean wilderness = touchesWilderness(map, points.get(0));
+        int[] avoiding = new int[points.size()];
+
+        for (int i = 0; i < points.size(); i++) {
+            if (wilderness) {
+                search.search(points.get(i), true);
+
+                for (int j = 0; j < points.size(); j++) {
+                    avoiding[j] = search.distance(points.get(j));
+                }
+            }
+
+            search.search(points.get(i), false);
+
+            for (int j = 0; j < points.size(); j++) {
+                int distance = search.distance(points.get(j));
+
+                if (distance <= 0) {
+                    continue;
+                }
+
+                // Avoiding the wilderness can only make the walk longer or impossible
+                boolean crossesWilderness = wilderness && avoiding[j] != distance;
+                addEdge(edges, points.get(i), points.get(j), distance, false, crossesWilderness);
+
+                if (crossesWilderness && avoiding[j] > 0) {
+                    addEdge(edges, points.get(i), points.get(j), avoiding[j], false, false);
+                }
+            }
+        }
+
+        return edges;
+    }
+
+    private static boolean touchesWilderness(CollisionMap map, int point) {
+        int regionMask = map.getRegionSize() - 1;
+        int minX = WorldPointUtil.getX(point) & ~regionMask;
+        int minY = WorldPointUtil.getY(point) & ~regionMask;
+        int plane = WorldPointUtil.getPlane(point);
+
+        for (int y = minY; y <= minY + regionMask; y++) {
+            for (int x = minX; x <= minX + regionMask; x++) {
+                if (Wilderness.contains(WorldPointUtil.pack(x, y, plane))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    public static RegionGraph read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a region graph file");
+            }
+
+            int regionSize = in.readInt();
+            int[] nodes = readInts(in);
+            int[] edgeStarts = readInts(in);
+            int[] edgeTargets = readInts(in);
+            int[] edgeCosts = readInts(in);
+            return new RegionGraph(regionSize, nodes, edgeStarts, edgeTargets, edgeCosts);
+        }
+    }
+
+    public void write(File file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(1 << regionShift);
+            writeInts(out, nodes);
+            writeInts(out, edgeStarts);
+            writeInts(out, edgeTargets);
+            writeInts(out, edgeCosts);
+        }
+
+        Util.writeAtomically(file, bytes.toByteArray());
+    }
+
+    private static int[] readInts(DataInputStream in) throws IOException {
+        int[] values = new int[in.readInt()];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readInt();
+        }
+
+        return values;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public int getNode(int index) {
+        return nodes[index];
+    }
+
+    /**
+     * @return the index of the node at {@code point}, or -1 if there is none
+     */
+    public int indexOf(int point) {
+        int index = Arrays.binarySearch(nodes, point);
+        return index < 0 ? -1 : index;
+    }
+
+    /**
+     * @return the indices of the nodes in the same region and plane as {@code point}
+     */
+    public int[] getRegionNodes(int point) {
+        return regionNodes.getOrDefault(regionKey(point), NONE);
+    }
+
+    public int getEdgeStart(int node) {
+        return edgeStarts[node];
+    }
+
+    public int getEdgeEnd(int node) {
+        return edgeStarts[node + 1];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return edgeTargets[edge];
+    }
+
+    public int getEdgeCost(int edge) {
+        return edgeCosts[edge] >>> 2;
+    }
+
+    /**
+     * @return whether the edge walks through the wilderness, which a search avoiding it has to skip
+     */
+    public boolean crossesWilderness(int edge) {
+        return (edgeCosts[edge] & 2) != 0;
+    }
+
+    public boolean isDirectEdge(int edge) {
+        return (edgeCosts[edge] & 1) != 0;
+    }
+
+    private int regionKey(int point) {
+        return regionKey(point, regionShift);
+    }
+
+    private static int regionKey(int point, int regionShift) {
+        return WorldPointUtil.pack(WorldPointUtil.getX(point) >> regionShift, WorldPointUtil.getY(point) >> regionShift, WorldPointUtil.getPlane(point));
+    }
+}
@@ -0,0 +1,122 @@
+package shortestpath.pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Breadth-first search confined to a single region and plane, using dense arrays indexed by the local tile.
+ */
+public class RegionSearch {
+    private final CollisionMap map;
+    private final int regionShift;
+    private final int regionMask;
+    private final int[] distances;
+    private final byte[] directions;
+    private final IntQueue queue;
+    private int minX;
+    private int minY;
+    private int plane;
+
+    public RegionSearch(CollisionMap map) {
+        this.map = map;
+        regionShift = Integer.numberOfTrailingZeros(map.getRegionSize());
+        regionMask = map.getRegionSize() - 1;
+        distances = new int[map.getRegionSize() * map.getRegionSize()];
+        directions = new byte[distances.length];
+        queue = new IntQueue(distances.length);
+    }
+
+    public void search(int source, boolean avoidWilderness) {
+        minX = WorldPointUtil.getX(source) & ~regionMask;
+        minY = WorldPointUtil.getY(source) & ~regionMask;
+        plane = WorldPointUtil.getPlane(source);
+        Arrays.fill(distances, -1);
+        queue.clear();
+
+        int sourceIndex = localIndex(WorldPointUtil.getX(source), WorldPointUtil.getY(source));
+        distances[sourceIndex] = 0;
+        queue.add(sourceIndex);
+
+        while (!queue.isEmpty()) {
+            int index = queue.poll();
+            int x = minX + (index & regionMask);
+            int y = minY + (index >>> regionShift);
+            int movement = map.movementMask(x, y, plane);
+
+            for (int direction = 0; direction < CollisionMap.DIRECTION_COUNT; direction++) {
+                if ((movement & (1 << direction)) == 0) {
+                    continue;
+                }
+
+                int nx = x + CollisionMap.DX[direction];
+                int ny = y + CollisionMap.DY[direction];
+
+                if (!contains(nx, ny)) {
+                    continue;
+                }
+
+                int neighbor = localIndex(nx, ny);
+
+                if (distances[neighbor] != -1) {
+                    continue;
+                }
+
+                if (avoidWilderness && Wilderness.contains(WorldPointUtil.pack(nx, ny, plane))) {
+                    continue;
+                }
+
+                distances[neighbor] = distances[index] + 1;
+                directions[neighbor] = (byte) direction;
+                queue.add(neighbor);
+            }
+        }
+    }
+
+    /**
+     * @return the number of steps from the source to {@code point}, or -1 if it cannot be reached inside the region
+     */
+    public int distance(int point) {
+        int x = WorldPointUtil.getX(point);
+        int y = WorldPointUtil.getY(point);
+
+        if (WorldPointUtil.getPlane(point) != plane || !contains(x, y)) {
+            return -1;
+        }
+
+        return distances[localIndex(x, y)];
+    }
+
+    /**
+     * Appends the tiles after the source up to and including {@code point} to {@code path}.
+     *
+     * @return false if {@code point} cannot be reached inside the region
+     */
+    public boolean appendPath(int point, IntList path) {
+        int distance = distance(point);
+
+        if (distance < 0) {
+            return false;
+        }
+
+        int start = path.size();
+        int x = WorldPointUtil.getX(point);
+        int y = WorldPointUtil.getY(point);
+
+        for (int i = 0; i < distance; i++) {
+            path.add(WorldPointUtil.pack(x, y, plane));
+            int direction = directions[localIndex(x, y)];
+            x -= CollisionMap.DX[direction];
+            y -= CollisionMap.DY[direction];
+        }
+
+        path.reverse(start, path.size());
+        return true;
+    }
+
+    private boolean contains(int x, int y) {
+        return x >= minX && y >= minY && x <= minX + regionMask && y <= minY + regionMask;
+    }
+
+    private int localIndex(int x, int y) {
+        return ((y - minY) << regionShift) | (x - minX);
+    }
+}
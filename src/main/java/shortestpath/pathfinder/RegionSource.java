@@ -0,0 +1,14 @@
+package shortestpath.pathfinder;
+
+public interface RegionSource {
+    int getRegionSize();
+
+    int getWidthInRegions();
+
+    int getHeightInRegions();
+
+    /**
+     * @return the flags of the region, or null if the source has no data for it
+     */
+    FlagMap load(int regionX, int regionY, int flagCount);
+}
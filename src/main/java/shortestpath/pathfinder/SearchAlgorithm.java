@@ -0,0 +1,21 @@
+package shortestpath.pathfinder;
+
+public enum SearchAlgorithm {
+    BREADTH_FIRST("Breadth-first"),
+    BIDIRECTIONAL("Bidirectional"),
+    A_STAR("A*"),
+    JUMP_POINT("Jump point"),
+    LANDMARKS("A* with landmarks"),
+    HIERARCHICAL("Hierarchical");
+
+    private final String name;
+
+    SearchAlgorithm(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
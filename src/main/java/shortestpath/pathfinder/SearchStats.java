@@ -0,0 +1,25 @@
+package shortestpath.pathfinder;
+
+/**
+ * How much work a search did.
+ */
+public class SearchStats {
+    // Tiles taken off the frontier and expanded
+    public final int expanded;
+    // The most tiles waiting on the frontier at once
+    public final int frontierPeak;
+    // Tiles the search reached, expanded or not
+    public final int visited;
+    public final long nanos;
+
+    public SearchStats(int expanded, int frontierPeak, int visited, long nanos) {
+        this.expanded = expanded;
+        this.frontierPeak = frontierPeak;
+        this.visited = visited;
+        this.nanos = nanos;
+    }
+
+    public double getMillis() {
+        return nanos / 1e6;
+    }
+}
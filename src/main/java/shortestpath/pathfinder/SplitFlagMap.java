@@ -1,54 +1,115 @@
 package shortestpath.pathfinder;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import com.google.common.cache.Weigher;
-import com.google.common.util.concurrent.UncheckedExecutionException;
-import shortestpath.Util;
-
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.UncheckedIOException;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.zip.GZIPInputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class SplitFlagMap {
-    private static final int MAXIMUM_SIZE = 20 * 1024 * 1024;
-    private final int regionSize;
-    private final LoadingCache<Position, FlagMap> regionMaps;
+    private static final FlagMap EMPTY_REGION = new FlagMap(0, 0, -1, -1, 0);
+    protected final int regionShift;
+    protected final int widthInRegions;
+    protected final int heightInRegions;
+    private final RegionSource source;
+    private final FlagMap[] regionMaps;
     private final int flagCount;
+    // Counted only when a region is loaded, which is rare enough not to slow down lookups
+    private final AtomicInteger regionsLoaded = new AtomicInteger();
+    private final AtomicLong decodeNanos = new AtomicLong();
 
     public SplitFlagMap(int regionSize, Map<Position, byte[]> compressedRegions, int flagCount) {
-        this.regionSize = regionSize;
+        this(new CompressedRegionSource(regionSize, compressedRegions), flagCount);
+    }
+
+    public SplitFlagMap(RegionSource source, int flagCount) {
+        if (Integer.bitCount(source.getRegionSize()) != 1) {
+            throw new IllegalArgumentException("Region size must be a power of two: " + source.getRegionSize());
+        }
+
+        this.source = source;
         this.flagCount = flagCount;
-        regionMaps = CacheBuilder
-                .newBuilder()
-                .weigher((Weigher<Position, FlagMap>) (k, v) -> v.flags.size() / 8)
-                .maximumWeight(MAXIMUM_SIZE)
-                .build(CacheLoader.from(position -> {
-                    byte[] compressedRegion = compressedRegions.get(position);
-
-                    if (compressedRegion == null) {
-                        return new FlagMap(position.x * regionSize, position.y * regionSize, (position.x + 1) * regionSize - 1, (position.y + 1) * regionSize - 1, this.flagCount);
-                    }
-
-                    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressedRegion))) {
-                        return new FlagMap(Util.readAllBytes(in), this.flagCount);
-                    } catch (IOException e) {
-                        throw new UncheckedIOException(e);
-                    }
-                }));
+        regionShift = Integer.numberOfTrailingZeros(source.getRegionSize());
+        widthInRegions = source.getWidthInRegions();
+        heightInRegions = source.getHeightInRegions();
+        regionMaps = new FlagMap[widthInRegions * heightInRegions];
     }
 
     public boolean get(int x, int y, int z, int flag) {
-        try {
-            return regionMaps.get(new Position(x / regionSize, y / regionSize)).get(x, y, z, flag);
-        } catch (ExecutionException e) {
-            throw new UncheckedExecutionException(e);
+        int index = regionIndex(x, y);
+
+        if (index < 0) {
+            return false;
         }
+
+        FlagMap regionMap = regionMaps[index];
+
+        if (regionMap == null) {
+            regionMap = loadRegion(index);
+        }
+
+        return regionMap.get(x, y, z, flag);
+    }
+
+    public boolean hasRegion(int regionX, int regionY) {
+        if (regionX < 0 || regionY < 0 || regionX >= widthInRegions || regionY >= heightInRegions) {
+            return false;
+        }
+
+        int index = regionY * widthInRegions + regionX;
+        FlagMap regionMap = regionMaps[index];
+        return (regionMap == null ? loadRegion(index) : regionMap) != EMPTY_REGION;
+    }
+
+    public int getRegionSize() {
+        return 1 << regionShift;
+    }
+
+    public int getWidthInRegions() {
+        return widthInRegions;
+    }
+
+    public int getHeightInRegions() {
+        return heightInRegions;
+    }
+
+    /**
+     * @return how many times a region has been loaded, which is never more than once per region unless two threads
+     * race to load it
+     */
+    public int getRegionsLoaded() {
+        return regionsLoaded.get();
+    }
+
+    /**
+     * @return the total time spent loading regions, in nanoseconds
+     */
+    public long getDecodeNanos() {
+        return decodeNanos.get();
+    }
+
+    protected int regionIndex(int x, int y) {
+        int regionX = x >> regionShift;
+        int regionY = y >> regionShift;
+
+        if (x < 0 || y < 0 || regionX >= widthInRegions || regionY >= heightInRegions) {
+            return -1;
+        }
+
+        return regionY * widthInRegions + regionX;
+    }
+
+    private FlagMap loadRegion(int index) {
+        // Regions are immutable once loaded, so a racing load from another thread only costs a duplicate decode
+        long start = System.nanoTime();
+        FlagMap regionMap = source.load(index % widthInRegions, index / widthInRegions, flagCount);
+        decodeNanos.addAndGet(System.nanoTime() - start);
+        regionsLoaded.incrementAndGet();
+
+        if (regionMap == null) {
+            regionMap = EMPTY_REGION;
+        }
+
+        regionMaps[index] = regionMap;
+        return regionMap;
     }
 
     public static class Position {
@@ -0,0 +1,157 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TransportGraph {
+    private static final int[] NONE = new int[0];
+    private static final int FILTER_BITS = 16;
+    private final int[] origins;
+    private final int[][] destinations;
+    // How long each transport takes, in the ticks it takes to walk a tile
+    private final int[][] durations;
+    private final boolean weighted;
+    private final int mask;
+    // One bit per origin hash, so most tiles without transports are ruled out without probing the table
+    private final long[] filter = new long[1 << FILTER_BITS >> 6];
+    private volatile TransportGraph reversed;
+
+    public TransportGraph(Map<WorldPoint, List<WorldPoint>> transports) {
+        this(transports, Collections.emptyMap());
+    }
+
+    /**
+     * @param durations for each origin, the duration of the transport to each of its destinations, in the same order,
+     *                  with transports left out taking as long as a step
+     */
+    public TransportGraph(Map<WorldPoint, List<WorldPoint>> transports, Map<WorldPoint, List<Integer>> durations) {
+        int capacity = Integer.highestOneBit(Math.max(16, transports.size() * 2) - 1) << 1;
+        origins = new int[capacity];
+        destinations = new int[capacity][];
+        this.durations = new int[capacity][];
+        mask = capacity - 1;
+        Arrays.fill(origins, WorldPointUtil.UNDEFINED);
+        boolean weighted = false;
+
+        for (Map.Entry<WorldPoint, List<WorldPoint>> entry : transports.entrySet()) {
+            List<Integer> entryDurations = durations.getOrDefault(entry.getKey(), Collections.emptyList());
+            int[] packed = new int[entry.getValue().size()];
+            int[] packedDurations = new int[packed.length];
+
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] = WorldPointUtil.pack(entry.getValue().get(i));
+                packedDurations[i] = i < entryDurations.size() ? Math.max(1, entryDurations.get(i)) : 1;
+                weighted |= packedDurations[i] != 1;
+            }
+
+            int origin = WorldPointUtil.pack(entry.getKey());
+            int slot = slot(origin);
+            origins[slot] = origin;
+            destinations[slot] = packed;
+            this.durations[slot] = packedDurations;
+
+            int bit = NodeMap.hash(origin) >>> (32 - FILTER_BITS);
+            filter[bit >>> 6] |= 1L << bit;
+        }
+
+        this.weighted = weighted;
+    }
+
+    public int[] getOrigins() {
+        IntList result = new IntList(origins.length / 2);
+
+        for (int origin : origins) {
+            if (origin != WorldPointUtil.UNDEFINED) {
+                result.add(origin);
+            }
+        }
+
+        return result.toArray();
+    }
+
+    /**
+     * @return whether any transport takes longer than a step
+     */
+    public boolean isWeighted() {
+        return weighted;
+    }
+
+    /**
+     * @return a graph with every transport pointing from its destination back to its origin
+     */
+    public TransportGraph reversed() {
+        TransportGraph reversed = this.reversed;
+
+        if (reversed == null) {
+            Map<WorldPoint, List<WorldPoint>> transports = new HashMap<>();
+            Map<WorldPoint, List<Integer>> durations = new HashMap<>();
+
+            for (int origin : getOrigins()) {
+                int[] destinations = getDestinations(origin);
+                int[] originDurations = getDurations(origin);
+
+                for (int i = 0; i < destinations.length; i++) {
+                    WorldPoint destination = WorldPointUtil.unpack(destinations[i]);
+                    transports.computeIfAbsent(destination, k -> new ArrayList<>()).add(WorldPointUtil.unpack(origin));
+                    durations.computeIfAbsent(destination, k -> new ArrayList<>()).add(originDurations[i]);
+                }
+            }
+
+            reversed = new TransportGraph(transports, durations);
+            reversed.reversed = this;
+            this.reversed = reversed;
+        }
+
+        return reversed;
+    }
+
+    public int[] getDestinations(int origin) {
+        int slot = find(origin);
+        return slot < 0 ? NONE : destinations[slot];
+    }
+
+    public boolean hasTransport(int origin, int destination) {
+        for (int d : getDestinations(origin)) {
+            if (d == destination) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the durations of the transports from {@code origin}, in the order of {@link #getDestinations(int)}
+     */
+    public int[] getDurations(int origin) {
+        int slot = find(origin);
+        return slot < 0 ? NONE : durations[slot];
+    }
+
+    private int find(int origin) {
+        int bit = NodeMap.hash(origin) >>> (32 - FILTER_BITS);
+
+        if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+            return -1;
+        }
+
+        int slot = slot(origin);
+        return origins[slot] == WorldPointUtil.UNDEFINED ? -1 : slot;
+    }
+
+    private int slot(int origin) {
+        int slot = NodeMap.hash(origin) & mask;
+
+        while (origins[slot] != WorldPointUtil.UNDEFINED && origins[slot] != origin) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+}
@@ -0,0 +1,27 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldArea;
+import net.runelite.api.coords.WorldPoint;
+
+public class Wilderness {
+    private static final WorldArea ABOVE_GROUND = new WorldArea(2944, 3523, 448, 448, 0);
+    private static final WorldArea UNDERGROUND = new WorldArea(2944, 9918, 320, 442, 0);
+
+    public static boolean contains(WorldPoint p) {
+        return ABOVE_GROUND.distanceTo(p) == 0 ||
+                UNDERGROUND.distanceTo(p) == 0;
+    }
+
+    public static boolean contains(int packedPoint) {
+        return contains(ABOVE_GROUND, packedPoint) ||
+                contains(UNDERGROUND, packedPoint);
+    }
+
+    private static boolean contains(WorldArea area, int packedPoint) {
+        int x = WorldPointUtil.getX(packedPoint);
+        int y = WorldPointUtil.getY(packedPoint);
+        return WorldPointUtil.getPlane(packedPoint) == area.getPlane() &&
+                x >= area.getX() && x < area.getX() + area.getWidth() &&
+                y >= area.getY() && y < area.getY() + area.getHeight();
+    }
+}
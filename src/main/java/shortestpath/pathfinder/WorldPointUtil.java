@@ -0,0 +1,40 @@
+package shortestpath.pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+
+public class WorldPointUtil {
+    public static final int UNDEFINED = -1;
+
+    private static final int X_BITS = 14;
+    private static final int Y_BITS = 15;
+    private static final int X_MASK = (1 << X_BITS) - 1;
+    private static final int Y_MASK = (1 << Y_BITS) - 1;
+
+    public static int pack(int x, int y, int plane) {
+        return (plane << (X_BITS + Y_BITS)) | (y << X_BITS) | x;
+    }
+
+    public static int pack(WorldPoint point) {
+        return pack(point.getX(), point.getY(), point.getPlane());
+    }
+
+    public static WorldPoint unpack(int packedPoint) {
+        return new WorldPoint(getX(packedPoint), getY(packedPoint), getPlane(packedPoint));
+    }
+
+    public static int getX(int packedPoint) {
+        return packedPoint & X_MASK;
+    }
+
+    public static int getY(int packedPoint) {
+        return (packedPoint >>> X_BITS) & Y_MASK;
+    }
+
+    public static int getPlane(int packedPoint) {
+        return packedPoint >>> (X_BITS + Y_BITS);
+    }
+
+    public static int distance(int a, int b) {
+        return Math.max(Math.abs(getX(a) - getX(b)), Math.abs(getY(a) - getY(b)));
+    }
+}
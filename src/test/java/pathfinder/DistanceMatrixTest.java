@@ -0,0 +1,107 @@
+package pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import shortestpath.PathfinderLoader;
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.DistanceMatrix;
+import shortestpath.pathfinder.Pathfinder;
+import shortestpath.pathfinder.TransportGraph;
+import shortestpath.pathfinder.Wilderness;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The costs in a distance matrix against the length of the path {@link Pathfinder} finds between each pair of points.
+ */
+public class DistanceMatrixTest {
+    // Where the portal from Soul Wars comes out, which is also the quickest way there, so that the path doesn't have to
+    // cross any other wilderness tile
+    private static final WorldPoint WILDERNESS = new WorldPoint(3158, 10027, 0);
+    // Towns across the map, one of them twice, a tile next to another and a point in the wilderness
+    private static final List<WorldPoint> POINTS = Arrays.asList(
+            new WorldPoint(3222, 3218, 0),
+            new WorldPoint(3213, 3424, 0),
+            new WorldPoint(2965, 3380, 0),
+            new WorldPoint(2662, 3305, 0),
+            new WorldPoint(3023, 3208, 0),
+            new WorldPoint(3093, 3493, 0),
+            new WorldPoint(2757, 3477, 0),
+            new WorldPoint(2440, 3090, 0),
+            new WorldPoint(3164, 3487, 0),
+            new WorldPoint(3222, 3219, 0),
+            new WorldPoint(3222, 3218, 0),
+            WILDERNESS);
+    private static CollisionMap map;
+    private static TransportGraph transports;
+    private static ForkJoinPool pool;
+
+    @BeforeClass
+    public static void loadData() {
+        PathfinderLoader loader = new PathfinderLoader(null, Runnable::run);
+        map = loader.loadCollisionMap();
+        transports = PathfinderLoader.compileTransports(loader.loadTransports(), null);
+        pool = new ForkJoinPool(2);
+    }
+
+    @AfterClass
+    public static void shutDownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void matchesPathfinder() {
+        assertMatchesPathfinder(false);
+    }
+
+    @Test
+    public void matchesPathfinderAvoidingWilderness() {
+        assertMatchesPathfinder(true);
+    }
+
+    @Test
+    public void reachesPointsInWildernessWhenAvoidingIt() {
+        DistanceMatrix avoiding = DistanceMatrix.compute(map, transports, POINTS, true, pool);
+        DistanceMatrix walking = DistanceMatrix.compute(map, transports, POINTS, false, pool);
+        int to = POINTS.indexOf(WILDERNESS);
+
+        assertNotEquals(DistanceMatrix.UNREACHABLE, avoiding.getCost(0, to));
+        for (int from = 0; from < POINTS.size(); from++) {
+            assertEquals(POINTS.get(from).toString(), walking.getCost(from, to), avoiding.getCost(from, to));
+        }
+    }
+
+    /**
+     * Checks every pair of points, except those ending in the wilderness when avoiding it, which {@link Pathfinder}
+     * leaves to the caller by not avoiding it for such a target.
+     */
+    private static void assertMatchesPathfinder(boolean avoidWilderness) {
+        assertFalse("Costs are counted in steps", transports.isWeighted());
+        DistanceMatrix matrix = DistanceMatrix.compute(map, transports, POINTS, avoidWilderness, pool);
+        assertEquals(POINTS.size(), matrix.size());
+
+        for (int from = 0; from < POINTS.size(); from++) {
+            for (int to = 0; to < POINTS.size(); to++) {
+                WorldPoint target = POINTS.get(to);
+                if (avoidWilderness && Wilderness.contains(target)) {
+                    continue;
+                }
+
+                List<WorldPoint> path = new Pathfinder(map, transports, POINTS.get(from), target, avoidWilderness).find();
+                boolean reached = path != null && path.get(path.size() - 1).equals(target);
+                assertTrue(POINTS.get(from) + " to " + target, reached || matrix.getCost(from, to) == DistanceMatrix.UNREACHABLE);
+                assertEquals(POINTS.get(from) + " to " + target, reached ? path.size() - 1 : DistanceMatrix.UNREACHABLE,
+                        matrix.getCost(from, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package pathfinder;
+
+import net.runelite.api.coords.WorldPoint;
+import shortestpath.PathfinderLoader;
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.Goal;
+import shortestpath.pathfinder.LandmarkTable;
+import shortestpath.pathfinder.Pathfinder;
+import shortestpath.pathfinder.RegionGraph;
+import shortestpath.pathfinder.SearchAlgorithm;
+import shortestpath.pathfinder.SearchStats;
+import shortestpath.pathfinder.TransportGraph;
+import shortestpath.pathfinder.Wilderness;
+import shortestpath.pathfinder.WorldPointUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Finds the path for every route in a file without a client, and writes how each search went as CSV or JSON:
+ * the path and its length, and the tiles expanded, the frontier peak, the tiles visited and the time taken.
+ * Routes are one per line, as the start and target coordinates like in transports.txt: "3222 3218 0 3213 3424 0".
+ * More targets can follow, in which case the path goes to the closest of them, and --within ends paths to a single
+ * target at the first tile that close to it. Every transport is used, as if the player met all of their requirements.
+ * <p>
+ * Usage: RouteBatchRunner routes.txt [--algorithm A_STAR] [--threads 1] [--repeat 1] [--avoid-wilderness]
+ * [--within 0] [--format csv|json] [--output results.csv] [--cache dir]
+ */
+public class RouteBatchRunner {
+    public static void main(String[] args) throws Exception {
+        File routesFile = null;
+        SearchAlgorithm algorithm = SearchAlgorithm.A_STAR;
+        int threads = 1;
+        int repeat = 1;
+        boolean avoidWilderness = false;
+        int within = 0;
+        boolean json = false;
+        File output = null;
+        File cacheDir = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--algorithm":
+                    algorithm = SearchAlgorithm.valueOf(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--repeat":
+                    repeat = Integer.parseInt(args[++i]);
+                    break;
+                case "--avoid-wilderness":
+                    avoidWilderness = true;
+                    break;
+                case "--within":
+                    within = Integer.parseInt(args[++i]);
+                    break;
+                case "--format":
+                    json = args[++i].equals("json");
+                    break;
+                case "--output":
+                    output = new File(args[++i]);
+                    break;
+                case "--cache":
+                    cacheDir = new File(args[++i]);
+                    break;
+                default:
+                    routesFile = new File(args[i]);
+            }
+        }
+
+        if (routesFile == null) {
+            System.err.println("Usage: RouteBatchRunner routes.txt [--algorithm A_STAR] [--threads 1] [--repeat 1] " +
+                    "[--avoid-wilderness] [--within 0] [--format csv|json] [--output results.csv] [--cache dir]");
+            System.exit(1);
+        } else if (repeat < 1) {
+            System.err.println("--repeat has to be at least 1, not " + repeat);
+            System.exit(1);
+        }
+
+        List<List<WorldPoint>> routes = readRoutes(routesFile, within);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            PathfinderLoader loader = new PathfinderLoader(cacheDir, executor);
+            CollisionMap map = loader.loadCollisionMap();
+            TransportGraph transports = PathfinderLoader.compileTransports(loader.loadTransports(), null);
+            RegionGraph regionGraph = algorithm == SearchAlgorithm.HIERARCHICAL ? loader.loadRegionGraph(map, transports) : null;
+            LandmarkTable landmarks = algorithm == SearchAlgorithm.LANDMARKS ? loader.loadLandmarks(map, transports) : null;
+
+            // Each round runs the whole batch, so that later rounds can be profiled without the map still loading
+            List<Result> results = null;
+            for (int round = 0; round < repeat; round++) {
+                List<Future<Result>> futures = new ArrayList<>();
+
+                for (List<WorldPoint> route : routes) {
+                    SearchAlgorithm routeAlgorithm = algorithm;
+                    List<WorldPoint> targets = route.subList(1, route.size());
+                    Goal goal = targets.size() > 1 ? Goal.anyOf(targets) : within > 0 ? Goal.within(targets.get(0), within) : Goal.of(targets.get(0));
+                    boolean avoid = avoidWilderness && targets.stream().noneMatch(Wilderness::contains);
+                    futures.add(executor.submit(() -> run(map, transports, regionGraph, landmarks, route.get(0), targets, goal, avoid, routeAlgorithm)));
+                }
+
+                results = new ArrayList<>();
+                for (Future<Result> future : futures) {
+                    results.add(future.get());
+                }
+            }
+
+            try (PrintStream out = output == null ? System.out : new PrintStream(output, StandardCharsets.UTF_8.name())) {
+                if (json) {
+                    writeJson(out, results);
+                } else {
+                    writeCsv(out, results);
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @return the start of each route followed by its targets
+     */
+    private static List<List<WorldPoint>> readRoutes(File file, int within) throws IOException {
+        List<List<WorldPoint>> routes = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+
+        for (int n = 1; n <= lines.size(); n++) {
+            String line = lines.get(n - 1).trim();
+
+            if (line.startsWith("#") || line.isEmpty()) {
+                continue;
+            }
+
+            String[] l = line.split("\\s+");
+            if (l.length % 3 != 0) {
+                throw new IllegalArgumentException("Line " + n + " of " + file + " ends with a partial coordinate: " + line);
+            } else if (l.length < 6) {
+                throw new IllegalArgumentException("Line " + n + " of " + file + " has a start but no target: " + line);
+            } else if (within > 0 && l.length > 6) {
+                throw new IllegalArgumentException("Line " + n + " of " + file + " has several targets, which --within doesn't apply to: " + line);
+            }
+
+            List<WorldPoint> route = new ArrayList<>();
+
+            try {
+                for (int i = 0; i < l.length; i += 3) {
+                    route.add(new WorldPoint(Integer.parseInt(l[i]), Integer.parseInt(l[i + 1]), Integer.parseInt(l[i + 2])));
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + n + " of " + file + " has a coordinate that isn't a number: " + line, e);
+            }
+
+            routes.add(route);
+        }
+
+        return routes;
+    }
+
+    private static Result run(CollisionMap map, TransportGraph transports, RegionGraph regionGraph, LandmarkTable landmarks,
+                              WorldPoint start, List<WorldPoint> targets, Goal goal, boolean avoidWilderness, SearchAlgorithm algorithm) {
+        Pathfinder pathfinder = new Pathfinder(map, transports, regionGraph, landmarks, start, goal, avoidWilderness, algorithm);
+        List<WorldPoint> path = pathfinder.find();
+        boolean reached = path != null && !path.isEmpty() && goal.contains(WorldPointUtil.pack(path.get(path.size() - 1)));
+        return new Result(start, targets, algorithm, path, reached, pathfinder.getStats());
+    }
+
+    private static void writeCsv(PrintStream out, List<Result> results) {
+        out.println("start,targets,algorithm,reached,length,expanded,frontierPeak,visited,millis,path");
+
+        for (Result result : results) {
+            out.println(point(result.start) + "," + points(result.targets) + "," + result.algorithm.name() + "," +
+                    result.reached + "," + result.path.size() + "," + result.stats.expanded + "," + result.stats.frontierPeak + "," +
+                    result.stats.visited + "," + result.stats.getMillis() + "," + points(result.path));
+        }
+    }
+
+    private static void writeJson(PrintStream out, List<Result> results) {
+        out.println("[");
+
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            out.println("  {\"start\": " + jsonPoint(result.start) + ", \"targets\": " + jsonPoints(result.targets) +
+                    ", \"algorithm\": \"" + result.algorithm.name() + "\", \"reached\": " + result.reached +
+                    ", \"length\": " + result.path.size() + ", \"expanded\": " + result.stats.expanded +
+                    ", \"frontierPeak\": " + result.stats.frontierPeak + ", \"visited\": " + result.stats.visited +
+                    ", \"millis\": " + result.stats.getMillis() + ", \"path\": " + jsonPoints(result.path) + "}" + (i < results.size() - 1 ? "," : ""));
+        }
+
+        out.println("]");
+    }
+
+    private static String point(WorldPoint point) {
+        return point.getX() + " " + point.getY() + " " + point.getPlane();
+    }
+
+    private static String points(List<WorldPoint> points) {
+        return points.stream().map(RouteBatchRunner::point).collect(Collectors.joining(";"));
+    }
+
+    private static String jsonPoint(WorldPoint point) {
+        return "[" + point.getX() + ", " + point.getY() + ", " + point.getPlane() + "]";
+    }
+
+    private static String jsonPoints(List<WorldPoint> points) {
+        return points.stream().map(RouteBatchRunner::jsonPoint).collect(Collectors.joining(", ", "[", "]"));
+    }
+
+    private static class Result {
+        private final WorldPoint start;
+        private final List<WorldPoint> targets;
+        private final SearchAlgorithm algorithm;
+        private final List<WorldPoint> path;
+        private final boolean reached;
+        private final SearchStats stats;
+
+        private Result(WorldPoint start, List<WorldPoint> targets, SearchAlgorithm algorithm, List<WorldPoint> path, boolean reached, SearchStats stats) {
+            this.start = start;
+            this.targets = targets;
+            this.algorithm = algorithm;
+            this.path = path == null ? new ArrayList<>() : path;
+            this.reached = reached;
+            this.stats = stats;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package pathfinder;
+
+import net.runelite.api.Quest;
+import net.runelite.api.Skill;
+import net.runelite.api.coords.WorldPoint;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import shortestpath.PathfinderLoader;
+import shortestpath.Transport;
+import shortestpath.TransportRequirements;
+import shortestpath.pathfinder.CollisionMap;
+import shortestpath.pathfinder.IncrementalPathfinder;
+import shortestpath.pathfinder.LandmarkTable;
+import shortestpath.pathfinder.Pathfinder;
+import shortestpath.pathfinder.SearchAlgorithm;
+import shortestpath.pathfinder.TransportGraph;
+import shortestpath.pathfinder.WorldPointUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Transports that take longer than a step, from how transports.txt gives their duration to the searches that have to
+ * find the cheapest route with them rather than the one with the fewest steps.
+ */
+public class WeightedTransportTest {
+    private static final WorldPoint LUMBRIDGE = new WorldPoint(3222, 3218, 0);
+    private static final WorldPoint VARROCK = new WorldPoint(3213, 3424, 0);
+    // Away from the start and the target, so that a search has to look past walking to find the teleport, and still
+    // has some walking left after it
+    private static final WorldPoint TELEPORT_ORIGIN = new WorldPoint(3230, 3180, 0);
+    private static final WorldPoint TELEPORT_DESTINATION = new WorldPoint(3212, 3400, 0);
+    private static final SearchAlgorithm[] EXACT_ALGORITHMS = {
+            SearchAlgorithm.BREADTH_FIRST, SearchAlgorithm.BIDIRECTIONAL, SearchAlgorithm.LANDMARKS
+    };
+    private static CollisionMap map;
+    private static List<Transport> transports;
+
+    @BeforeClass
+    public static void loadData() {
+        PathfinderLoader loader = new PathfinderLoader(null, Runnable::run);
+        map = loader.loadCollisionMap();
+        transports = loader.loadTransports();
+    }
+
+    @Test
+    public void parsesDuration() {
+        Transport transport = Transport.parse("3230 3180 0 3212 3400 0 Cast Varrock Teleport duration=5");
+
+        assertEquals(TELEPORT_ORIGIN, transport.origin);
+        assertEquals(TELEPORT_DESTINATION, transport.destination);
+        assertEquals(5, transport.duration);
+        assertTrue(transport.requirements.isEmpty());
+    }
+
+    @Test
+    public void defaultsToOneTick() {
+        Transport transport = Transport.parse("3070 3260 0 3064 3260 0 Climb-into Underwall tunnel 19036 \"42 Agility, Diary\"");
+
+        assertEquals(1, transport.duration);
+        assertFalse(transport.requirements.isMetBy(skill -> skill == Skill.AGILITY ? 41 : 99, quest -> true));
+        assertTrue(transport.requirements.isMetBy(skill -> skill == Skill.AGILITY ? 42 : 1, quest -> true));
+    }
+
+    @Test
+    public void parsesQuotedRequirementsAndDuration() {
+        Transport transport = Transport.parse("2512 3476 0 2512 3481 0 Board Log raft 1987 \"After Waterfall Quest, 30 Fishing\" duration=4");
+
+        assertEquals(4, transport.duration);
+        assertFalse(transport.requirements.isMetBy(skill -> 99, quest -> false));
+        assertFalse(transport.requirements.isMetBy(skill -> 29, quest -> quest == Quest.WATERFALL_QUEST));
+        assertTrue(transport.requirements.isMetBy(skill -> 30, quest -> quest == Quest.WATERFALL_QUEST));
+    }
+
+    @Test
+    public void ignoresNotesThatArentRequirements() {
+        assertTrue(TransportRequirements.parse("Needs to be opened first, closed ID is 6434").isEmpty());
+        assertTrue(TransportRequirements.parse("Fishing Contest").isMetBy(skill -> 1, quest -> quest == Quest.FISHING_CONTEST));
+    }
+
+    @Test
+    public void walksAroundSlowTransport() {
+        int walking = walkingCost(LUMBRIDGE, VARROCK);
+        List<Transport> withTeleport = withTeleport(walking + 100);
+
+        assertCosts(withTeleport, walking);
+    }
+
+    @Test
+    public void takesFastTransport() {
+        int teleporting = walkingCost(LUMBRIDGE, TELEPORT_ORIGIN) + 20 + walkingCost(TELEPORT_DESTINATION, VARROCK);
+        List<Transport> withTeleport = withTeleport(20);
+
+        assertTrue("The teleport should be quicker than walking", teleporting < walkingCost(LUMBRIDGE, VARROCK));
+        assertCosts(withTeleport, teleporting);
+    }
+
+    private static List<Transport> withTeleport(int duration) {
+        List<Transport> withTeleport = new ArrayList<>(transports);
+        withTeleport.add(Transport.parse("3230 3180 0 3212 3400 0 Cast Varrock Teleport duration=" + duration));
+        return withTeleport;
+    }
+
+    /**
+     * Checks that every search which finds the cheapest route does so from Lumbridge to Varrock.
+     */
+    private static void assertCosts(List<Transport> transports, int expected) {
+        TransportGraph graph = PathfinderLoader.compileTransports(transports, null);
+        assertTrue(graph.isWeighted());
+        LandmarkTable landmarks = LandmarkTable.build(map, graph, WorldPointUtil.pack(LUMBRIDGE), 2);
+
+        for (SearchAlgorithm algorithm : EXACT_ALGORITHMS) {
+            List<WorldPoint> path = new Pathfinder(map, graph, null, landmarks, LUMBRIDGE, VARROCK, false, algorithm).find();
+            assertEquals(algorithm.toString(), expected, cost(path, VARROCK, transports));
+        }
+
+        List<WorldPoint> path = new IncrementalPathfinder(map, graph, VARROCK, false, false).find(LUMBRIDGE, () -> false);
+        assertEquals("Incremental", expected, cost(path, VARROCK, transports));
+    }
+
+    private static int walkingCost(WorldPoint start, WorldPoint target) {
+        TransportGraph graph = PathfinderLoader.compileTransports(transports, null);
+        assertFalse(graph.isWeighted());
+
+        List<WorldPoint> path = new Pathfinder(map, graph, start, target, false).find();
+        return cost(path, target, transports);
+    }
+
+    /**
+     * @return the cost of {@code path}, which has to end at {@code target}, taking the quickest way between each pair
+     * of tiles along it
+     */
+    private static int cost(List<WorldPoint> path, WorldPoint target, List<Transport> transports) {
+        assertNotNull("No path", path);
+        assertEquals(target, path.get(path.size() - 1));
+        int cost = 0;
+
+        for (int i = 1; i < path.size(); i++) {
+            WorldPoint from = path.get(i - 1);
+            WorldPoint to = path.get(i);
+            int step = from.getPlane() == to.getPlane() && from.distanceTo(to) == 1 ? 1 : Integer.MAX_VALUE;
+
+            for (Transport transport : transports) {
+                if (transport.origin.equals(from) && transport.destination.equals(to)) {
+                    step = Math.min(step, transport.duration);
+                }
+            }
+
+            assertTrue("No way from " + from + " to " + to, step != Integer.MAX_VALUE);
+            cost += step;
+        }
+
+        return cost;
+    }
+}